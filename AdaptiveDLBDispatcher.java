@@ -0,0 +1,180 @@
+/*
+  file name:      AdaptiveDLBDispatcher.java
+  Authors:        Vishnu Varadhan
+  last modified:  10/18/2026
+  Class Purpose:  A DLBDispatcher that tunes its weights online with a Kiefer-Wolfowitz stochastic-approximation
+                  controller instead of using fixed ones. The controller searches one number, the share u of the
+                  score given to the queue length counted in mean job sizes:
+                      score = (1 - u) * remaining work + u * mean job size * queue length
+                  so u = 0 is least work and u = 1 is shortest queue. It runs the farm in epochs of a fixed number of
+                  jobs, alternately at u + c and u - c, and after each pair moves u against the relative difference
+                  of the average waiting times of the jobs finished in the two epochs, with the usual decreasing
+                  gains a / (n + 1 + A)^0.602 and c / (n + 1)^0.101. The first quarter of every epoch is not
+                  measured, so jobs still queued under the previous weights do not count against the new ones.
+
+                  Between epoch boundaries a job costs a comparison and an addition. A boundary sums the farm's
+                  waiting times and rescores every server, O(k), which spread over an epoch of at least 512k jobs is
+                  O(1) per job. With the default epochs a 34-server farm makes about 290 controller steps in 10M
+                  jobs and settles within the first 2M.
+*/
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class AdaptiveDLBDispatcher extends DLBDispatcher {
+    private static final double GAIN = 0.2;             // a in the step size
+    private static final double STABILITY = 10;         // A in the step size
+    private static final double PERTURBATION = 0.2;     // c in the perturbation
+    private static final double MIN_PERTURBATION = 0.02;
+
+    private int epochLength;
+    private double share;            // current estimate of u
+    private double appliedShare;     // u the current weights were computed from, perturbation included
+    private int iteration;           // completed pairs of epochs
+    private int epochInPair;         // 0 for the first epoch of a pair, 1 for the second
+    private double firstEpochWait;   // average wait measured in the first epoch of the pair
+    private double firstEpochShare;  // u the first epoch of the pair ran at
+    private int nextBoundary;        // jobs handled at which the next measurement starts or the epoch ends
+    private boolean measuring;       // whether the settling part of the current epoch is over
+    private double waitAtStart;      // farm-wide total waiting time when the measurement started
+    private long finishedAtStart;    // farm-wide jobs finished when the measurement started
+    private double sizeSum;          // sizes of the jobs dispatched
+    private long sizeCount;
+    private double meanJobSize;      // mean job size the current weights were computed with, 0 until known
+
+    // Constructor: Creates an adaptive dispatcher with epochs of the default length for k servers.
+    public AdaptiveDLBDispatcher(int k, boolean showViz) {
+        this(k, showViz, defaultEpochLength(k));
+    }
+
+    // Constructor: Creates an adaptive dispatcher that takes a controller step every two epochs of epochLength jobs.
+    public AdaptiveDLBDispatcher(int k, boolean showViz, int epochLength) {
+        super(k, showViz);
+        if (epochLength < 4) {
+            throw new IllegalArgumentException("An epoch must have at least 4 jobs: " + epochLength);
+        }
+        this.epochLength = epochLength;
+        this.share = 0.5;
+        this.nextBoundary = epochLength / 4;
+        applyShare(share + perturbation());
+    }
+
+    // Returns an epoch length long enough for the average wait of an epoch to be a usable measurement, and for the
+    // rescoring at its end to cost little per job.
+    public static int defaultEpochLength(int k) {
+        return Math.max(16384, 512 * k);
+    }
+
+    // Returns the share u the controller has learned, without its current perturbation.
+    public double getQueueLengthShare() {
+        return share;
+    }
+
+    // Returns the number of controller steps taken, one per pair of epochs.
+    public int getIterations() {
+        return iteration;
+    }
+
+    // Counts the job's size, then ends the current epoch or its settling part when it is due.
+    @Override
+    protected void jobDispatched(Job job, int serverIndex) {
+        sizeSum += job.getProcessingTimeNeeded();
+        sizeCount++;
+        if (getNumJobsHandled() >= nextBoundary) {
+            epochBoundary();
+        }
+    }
+
+    // Starts measuring once the epoch has settled, or ends the epoch: records its average wait, takes a controller
+    // step after the second epoch of a pair, and moves to the other side of the perturbation.
+    private void epochBoundary() {
+        if (!measuring) {
+            if (meanJobSize == 0) {
+                // The first jobs were scored without knowing their mean size; settle again with it
+                meanJobSize = sizeSum / sizeCount;
+                applyShare(appliedShare);
+                nextBoundary += epochLength / 4;
+                return;
+            }
+            measuring = true;
+            waitAtStart = getTotalWaitingTime();
+            finishedAtStart = getNumJobsFinished();
+            nextBoundary += epochLength - epochLength / 4;
+            return;
+        }
+        long finished = getNumJobsFinished() - finishedAtStart;
+        double averageWait = finished > 0 ? (getTotalWaitingTime() - waitAtStart) / finished : 0;
+        if (epochInPair == 0) {
+            firstEpochWait = averageWait;
+            firstEpochShare = appliedShare;
+            epochInPair = 1;
+        } else {
+            // The two sides are closer than 2c where u + c or u - c was clamped to [0, 1]
+            double meanWait = (firstEpochWait + averageWait) / 2;
+            if (meanWait > 0 && appliedShare != firstEpochShare) {
+                double gradient = (averageWait - firstEpochWait) / meanWait / (appliedShare - firstEpochShare);
+                double step = GAIN / Math.pow(iteration + 1 + STABILITY, 0.602);
+                share = Math.min(1, Math.max(0, share - step * gradient));
+            }
+            iteration++;
+            epochInPair = 0;
+        }
+        meanJobSize = sizeSum / sizeCount;
+        // Pairs alternate which side goes first, so a drift in the load does not bias every step the same way
+        boolean plus = (epochInPair == 0) == (iteration % 2 == 0);
+        double c = perturbation();
+        applyShare(plus ? share + c : share - c);
+        measuring = false;
+        nextBoundary += epochLength / 4;
+    }
+
+    private double perturbation() {
+        return Math.max(MIN_PERTURBATION, PERTURBATION / Math.pow(iteration + 1, 0.101));
+    }
+
+    // Sets the weights for the given share, clamped to [0, 1].
+    private void applyShare(double u) {
+        appliedShare = Math.min(1, Math.max(0, u));
+        setWeights(appliedShare * (meanJobSize > 0 ? meanJobSize : 1), 1 - appliedShare);
+    }
+
+    // Writes the weights, the epoch length and the controller's state.
+    @Override
+    protected void writePolicyState(DataOutputStream out) throws IOException {
+        super.writePolicyState(out);
+        out.writeInt(epochLength);
+        out.writeDouble(share);
+        out.writeDouble(appliedShare);
+        out.writeInt(iteration);
+        out.writeInt(epochInPair);
+        out.writeDouble(firstEpochWait);
+        out.writeDouble(firstEpochShare);
+        out.writeInt(nextBoundary);
+        out.writeBoolean(measuring);
+        out.writeDouble(waitAtStart);
+        out.writeLong(finishedAtStart);
+        out.writeDouble(sizeSum);
+        out.writeLong(sizeCount);
+        out.writeDouble(meanJobSize);
+    }
+
+    @Override
+    protected void readPolicyState(DataInputStream in) throws IOException {
+        super.readPolicyState(in);
+        epochLength = in.readInt();
+        share = in.readDouble();
+        appliedShare = in.readDouble();
+        iteration = in.readInt();
+        epochInPair = in.readInt();
+        firstEpochWait = in.readDouble();
+        firstEpochShare = in.readDouble();
+        nextBoundary = in.readInt();
+        measuring = in.readBoolean();
+        waitAtStart = in.readDouble();
+        finishedAtStart = in.readLong();
+        sizeSum = in.readDouble();
+        sizeCount = in.readLong();
+        meanJobSize = in.readDouble();
+    }
+}
@@ -0,0 +1,217 @@
+/*
+file name:      AnalyticEstimator.java
+Authors:        Vishnu Varadhan
+last modified:  10/18/2026
+Class Purpose:  Closed-form queueing predictions for the simulated farms, computed instantly from the same parameters
+                as JobMaker and the dispatcher type. Like the simulation, "waiting time" means the time from arrival
+                to completion. Arrival gaps and processing times are the exponentials of JobMaker, rounded down to
+                multiples of 1/128 with a floor of 1/128, and their exact moments are used throughout.
+
+                    random          each server is an M/G/1 queue fed a Poisson share of the jobs (Pollaczek-Khinchine)
+                    round           each server sees the sum of k arrival gaps, an E_k/M/1 queue (solved exactly)
+                    least           sending each job to the least remaining work is a central FIFO queue, M/M/k
+                                    (Erlang C, corrected for the service time variability)
+                    shortest, dlb,  no closed form: bounded below by the central queue and, for the join-shortest-queue
+                    dlbAdaptive,    family, above by random splitting
+                    jiq
+                    timeSensitive   no closed form: bounded below by the central queue only, since its random
+                                    choices are not guaranteed to do better than random splitting
+                    sita            no closed form: routing on job sizes can do better than the central FIFO queue, so
+                                    the only lower bound is the mean processing time itself, and there is no upper one
+                    powerOfTwo      the large-farm (mean-field) limit of power of two choices
+                    powerOfTwoLeast no closed form: between the central queue and random splitting, and in practice
+                                    below the queue-length version of power of two choices
+
+                A farm is stable when the mean processing time is below k times the mean arrival gap; every
+                prediction for an unstable farm is infinite.
+*/
+
+public class AnalyticEstimator {
+    private static final double GRID = 1.0 / 128; // JobMaker rounds every time down to this grid
+
+    // How much a prediction can be trusted.
+    public enum Kind {
+        EXACT,          // exact for the model, up to the rounding of the job stream
+        APPROXIMATE,    // an approximation, usually within a few percent
+        BOUNDS          // only the lower and upper bounds are guaranteed; the estimate is a rough guess inside them
+    }
+
+    // The predicted mean waiting time of a configuration, with bounds and the load per server.
+    public static class Prediction {
+        public final String dispatcherType;
+        public final int numServers;
+        public final double utilization;
+        public final double meanWait;
+        public final double lowerBound;
+        public final double upperBound;
+        public final Kind kind;
+
+        public Prediction(String dispatcherType, int numServers, double utilization, double meanWait,
+                          double lowerBound, double upperBound, Kind kind) {
+            this.dispatcherType = dispatcherType;
+            this.numServers = numServers;
+            this.utilization = utilization;
+            this.meanWait = meanWait;
+            this.lowerBound = lowerBound;
+            this.upperBound = upperBound;
+            this.kind = kind;
+        }
+
+        // Returns true if the queues stay bounded, that is if the servers are less than fully utilized.
+        public boolean isStable() {
+            return utilization < 1;
+        }
+
+        // Returns true if a simulated mean waiting time is consistent with the prediction: within the relative
+        // tolerance of the estimate for exact and approximate predictions, or inside the widened bounds otherwise.
+        public boolean agreesWith(double simulatedMeanWait, double relativeTolerance) {
+            if (!isStable()) {
+                return true; // an unstable farm has no steady state to compare a finite run with
+            }
+            if (kind == Kind.BOUNDS) {
+                return simulatedMeanWait >= lowerBound * (1 - relativeTolerance)
+                        && simulatedMeanWait <= upperBound * (1 + relativeTolerance);
+            }
+            return Math.abs(simulatedMeanWait - meanWait) <= relativeTolerance * meanWait;
+        }
+
+        public String toString() {
+            if (!isStable()) {
+                return "unstable (utilization " + utilization + ")";
+            }
+            if (kind == Kind.BOUNDS) {
+                return "between " + lowerBound + " and " + upperBound + " (utilization " + utilization + ")";
+            }
+            return meanWait + " (" + kind.toString().toLowerCase() + ", utilization " + utilization + ")";
+        }
+    }
+
+    // Predicts the mean waiting time of a farm of numServers servers run by the given dispatcher type, fed by a
+    // JobMaker with the given means.
+    public static Prediction predict(String dispatcherType, int numServers, double meanArrivalTime, double meanProcessingTime) {
+        double arrivalMean = roundedMean(meanArrivalTime);
+        double serviceMean = roundedMean(meanProcessingTime);
+        double serviceSecondMoment = roundedSecondMoment(meanProcessingTime);
+        double utilization = serviceMean / (numServers * arrivalMean);
+        if (utilization >= 1) {
+            double inf = Double.POSITIVE_INFINITY;
+            return new Prediction(dispatcherType, numServers, utilization, inf, inf, inf, Kind.EXACT);
+        }
+
+        double random = pollaczekKhinchine(numServers * arrivalMean, serviceMean, serviceSecondMoment);
+        double central = centralQueue(numServers, arrivalMean, serviceMean, serviceSecondMoment);
+        switch (dispatcherType) {
+            case "random":
+                return new Prediction(dispatcherType, numServers, utilization, random, random, random, Kind.EXACT);
+            case "round": {
+                double wait = erlangArrivalsExponentialService(numServers, arrivalMean, serviceMean);
+                return new Prediction(dispatcherType, numServers, utilization, wait, wait, wait, Kind.EXACT);
+            }
+            case "least":
+                return new Prediction(dispatcherType, numServers, utilization, central, central, central, Kind.APPROXIMATE);
+            case "powerOfTwo": {
+                double wait = powerOfChoices(2, utilization, serviceMean);
+                return new Prediction(dispatcherType, numServers, utilization, wait, central, random, Kind.APPROXIMATE);
+            }
+            case "powerOfTwoLeast":
+                return new Prediction(dispatcherType, numServers, utilization, powerOfChoices(2, utilization, serviceMean),
+                        central, random, Kind.BOUNDS);
+            case "shortest":
+            case "dlb":
+            case "dlbAdaptive":
+            case "jiq":
+                // Balancing on the state of every server usually comes close to the central queue
+                return new Prediction(dispatcherType, numServers, utilization, central, central, random, Kind.BOUNDS);
+            case "sita":
+                // Routing on job sizes can beat the central FIFO queue, so only a job's own processing time is certain
+                return new Prediction(dispatcherType, numServers, utilization, central, serviceMean, Double.POSITIVE_INFINITY, Kind.BOUNDS);
+            default:
+                // Any other policy can still do no better than the central queue
+                return new Prediction(dispatcherType, numServers, utilization, central, central, Double.POSITIVE_INFINITY, Kind.BOUNDS);
+        }
+    }
+
+    // Mean of an exponential with the given mean after JobMaker's rounding: with N = floor(128 X), which is geometric,
+    // the value is max(N, 1) / 128.
+    static double roundedMean(double mean) {
+        double q = Math.exp(-1 / (128 * mean)); // P(N >= n + 1 | N >= n)
+        return GRID * ((1 - q) + q / (1 - q));
+    }
+
+    // Second moment of an exponential with the given mean after JobMaker's rounding.
+    static double roundedSecondMoment(double mean) {
+        double q = Math.exp(-1 / (128 * mean));
+        return GRID * GRID * ((1 - q) + q * (1 + q) / ((1 - q) * (1 - q)));
+    }
+
+    // M/G/1 time in system with Poisson arrivals every arrivalMean on average (Pollaczek-Khinchine).
+    static double pollaczekKhinchine(double arrivalMean, double serviceMean, double serviceSecondMoment) {
+        double rate = 1 / arrivalMean;
+        double rho = rate * serviceMean;
+        return rate * serviceSecondMoment / (2 * (1 - rho)) + serviceMean;
+    }
+
+    // E_k/M/1 time in system: each server receives every k-th job, so its arrival gaps are sums of k exponential gaps.
+    // sigma is the root in (0, 1) of sigma = A(mu (1 - sigma)), where A is the Laplace transform of the gap.
+    static double erlangArrivalsExponentialService(int k, double arrivalMean, double serviceMean) {
+        double rate = 1 / arrivalMean;
+        double mu = 1 / serviceMean;
+        double sigma = 0;
+        // The iteration increases monotonically to the smallest root
+        for (int i = 0; i < 100000; i++) {
+            double next = Math.pow(rate / (rate + mu * (1 - sigma)), k);
+            if (Math.abs(next - sigma) < 1e-15) {
+                sigma = next;
+                break;
+            }
+            sigma = next;
+        }
+        return 1 / (mu * (1 - sigma));
+    }
+
+    // M/G/k time in system with a central FIFO queue: Erlang C for the M/M/k queue, with the queueing delay scaled by
+    // (1 + c^2) / 2 for the service time's squared coefficient of variation c^2.
+    static double centralQueue(int k, double arrivalMean, double serviceMean, double serviceSecondMoment) {
+        double offered = serviceMean / arrivalMean; // a = lambda / mu
+        double rho = offered / k;
+        // Erlang B by its stable recursion, then Erlang C from it
+        double erlangB = 1;
+        for (int i = 1; i <= k; i++) {
+            erlangB = offered * erlangB / (i + offered * erlangB);
+        }
+        double erlangC = erlangB / (1 - rho + rho * erlangB);
+        double scv = serviceSecondMoment / (serviceMean * serviceMean) - 1;
+        double queueing = erlangC * serviceMean / (k * (1 - rho));
+        return queueing * (1 + scv) / 2 + serviceMean;
+    }
+
+    // Time in system under power of d choices in the limit of many servers: the fraction of servers with at least i
+    // jobs is rho^((d^i - 1) / (d - 1)), and by Little's law the mean time is the sum of those fractions over
+    // i >= 1, divided by the arrival rate per server.
+    static double powerOfChoices(int d, double rho, double serviceMean) {
+        double jobsPerServer = 0;
+        double exponent = 1; // (d^i - 1) / (d - 1) for i = 1
+        double power = d;
+        for (int i = 1; i < 64; i++) {
+            double fraction = Math.pow(rho, exponent);
+            jobsPerServer += fraction;
+            if (fraction < 1e-12) {
+                break;
+            }
+            exponent += power;
+            power *= d;
+        }
+        return jobsPerServer * serviceMean / rho;
+    }
+
+    // Prints the prediction of every dispatcher type for a farm. Optional arguments: number of servers, mean arrival
+    // time and mean processing time.
+    public static void main(String[] args) {
+        int numServers = args.length > 0 ? Integer.parseInt(args[0]) : 34;
+        double meanArrivalTime = args.length > 1 ? Double.parseDouble(args[1]) : 3;
+        double meanProcessingTime = args.length > 2 ? Double.parseDouble(args[2]) : 100;
+        for (String type : new String[] {"random", "round", "shortest", "least", "timeSensitive", "dlb", "powerOfTwo", "powerOfTwoLeast", "jiq"}) {
+            System.out.println(type + "\t" + predict(type, numServers, meanArrivalTime, meanProcessingTime));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+  Author: Vishnu Varadhan
+
+  Date: 10/18/2026
+
+  Name: ArrayQueue.java
+
+  Purpose: Implements the Queue interface on a growable circular array, in the style of java.util.ArrayDeque.
+               Items sit next to each other in memory and no node is allocated per offer, so offer, poll,
+               peek, removeLast and get by index all run in constant time. Iteration runs from the front
+               of the queue to the back.
+*/
+
+
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+
+public class ArrayQueue<T> implements Iterable<T>, Queue<T> {
+    private Object[] items;
+    private int head; // index of the item at the front of the queue
+    private int size;
+
+
+    private class AQIterator implements Iterator<T> {
+        private int position;
+
+        public AQIterator() {
+            position = 0;
+        }
+
+        public boolean hasNext() {
+            return position < size;
+        }
+
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return get(position++);
+        }
+    }
+
+    public ArrayQueue() {
+        this(16);
+    }
+
+    public ArrayQueue(int initialCapacity) {
+        items = new Object[Integer.highestOneBit(Math.max(initialCapacity, 2) - 1) << 1];
+        head = 0;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            items[(head + i) & (items.length - 1)] = null;
+        }
+        head = 0;
+        size = 0;
+    }
+
+    //adds item to the back of the queue
+    public void offer(T item) {
+        if (size == items.length) {
+            grow();
+        }
+        items[(head + size) & (items.length - 1)] = item;
+        size++;
+    }
+
+    public T peek() {
+        return size == 0 ? null : itemAt(head);
+    }
+
+    public T poll() {
+        if (size == 0) {
+            throw new NoSuchElementException("Cannot remove from an empty queue.");
+        }
+        T item = itemAt(head);
+        items[head] = null;
+        head = (head + 1) & (items.length - 1);
+        size--;
+        return item;
+    }
+
+    public T peekLast() {
+        return size == 0 ? null : get(size - 1);
+    }
+
+    public T removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException("Cannot remove from an empty queue.");
+        }
+        int slot = (head + size - 1) & (items.length - 1);
+        T item = itemAt(slot);
+        items[slot] = null;
+        size--;
+        return item;
+    }
+
+    //index 0 is the front of the queue
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return itemAt((head + index) & (items.length - 1));
+    }
+
+    public Iterator<T> iterator() {
+        return new AQIterator();
+    }
+
+    public String toString() {
+        StringBuilder queue = new StringBuilder();
+        queue.append("{");
+        for (int i = 0; i < size; i++) {
+            queue.append(get(i));
+            if (i < size - 1) {
+                queue.append(", ");
+            }
+        }
+        queue.append("}");
+        return queue.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private T itemAt(int slot) {
+        return (T) items[slot];
+    }
+
+    //doubles the array, moving the front of the queue back to index 0
+    private void grow() {
+        Object[] grown = new Object[items.length * 2];
+        int firstPart = items.length - head;
+        System.arraycopy(items, head, grown, 0, firstPart);
+        System.arraycopy(items, 0, grown, firstPart, head);
+        items = grown;
+        head = 0;
+    }
+}
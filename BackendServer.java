@@ -0,0 +1,71 @@
+/*
+  file name:      BackendServer.java
+  Authors:        Vishnu Varadhan
+  last modified:  10/18/2026
+  Class Purpose:  Extends the Server class to stand in for a real backend when a dispatcher runs as an online load
+                  balancer (see DispatchService). Jobs are not processed by the simulation: a job stays at the
+                  server from the moment it is dispatched until the backend reports that it has finished, in any
+                  order. The queue length and remaining work are the number and total estimated size of those
+                  outstanding jobs, which is all the dispatching policies look at. The jobs themselves are tracked
+                  by whoever reports the completions, so the server keeps only the totals and the waiting times.
+*/
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BackendServer extends Server {
+
+    // Constructor: Initializes a BackendServer object by calling the parent Server constructor.
+    public BackendServer() {
+        super();
+    }
+
+    // Adds an outstanding job with its estimated processing time.
+    @Override
+    public void addJob(double arrivalTime, double processingTimeNeeded) {
+        remainingTime += processingTimeNeeded;
+        numJobs++;
+    }
+
+    // Adds an outstanding job; the processing it has already received is not tracked.
+    @Override
+    public void addJob(double arrivalTime, double processingTimeNeeded, double processingTimeSpent) {
+        addJob(arrivalTime, processingTimeNeeded);
+    }
+
+    // Records that an outstanding job has finished at the given time.
+    public void completeJob(double arrivalTime, double processingTimeNeeded, double finishTime) {
+        if (numJobs == 0) {
+            throw new IllegalStateException("No outstanding job at server " + getServerIndex());
+        }
+        double waitingTime = finishTime - arrivalTime;
+        totalWaitingTime += waitingTime;
+        waitingTimes.record(waitingTime);
+        numJobs--;
+        numJobsProcessed++;
+        remainingTime = numJobs == 0 ? 0 : remainingTime - processingTimeNeeded;
+        if (finishTime > time) {
+            time = finishTime;
+        }
+    }
+
+    // Advances the clock only; jobs finish when the backend says so.
+    @Override
+    public void processTo(double processTime) {
+        if (processTime > time) {
+            time = processTime;
+        }
+    }
+
+    // Returns positive infinity, since no completion can be predicted.
+    @Override
+    public double nextCompletionTime() {
+        return Double.POSITIVE_INFINITY;
+    }
+
+    // Returns an empty list: the outstanding jobs are known only to whoever reports their completions.
+    @Override
+    public List<Job> getQueuedJobs() {
+        return new ArrayList<>();
+    }
+}
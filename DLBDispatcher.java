@@ -6,37 +6,86 @@
                   the workload across servers. This strategy considers both the queue length and the total
                   remaining work in each server's queue, calculating a score to determine the most suitable
                   server for each incoming job. The goal is to minimize overall waiting times and improve
-                  system efficiency by balancing the load dynamically.
+                  system efficiency by balancing the load dynamically. Scores are kept in a LoadTree, so picking
+                  a server costs O(1) and each queue change costs O(log k). The weights are 0.5 and 0.5 unless
+                  given; AdaptiveDLBDispatcher tunes them online.
 */
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 public class DLBDispatcher extends JobDispatcher {
+    private LoadTree scores;
+    private double queueLengthWeight;   // weight of the queue length in the score
+    private double remainingWorkWeight; // weight of the remaining work in the score
 
     // Constructor: Initializes the DLBDispatcher with a specified number of servers and visualization preferences.
     public DLBDispatcher(int k, boolean showViz) {
+        this(k, showViz, 0.5, 0.5);
+    }
+
+    // Constructor: Creates a dispatcher that scores servers with the given fixed weights.
+    public DLBDispatcher(int k, boolean showViz, double queueLengthWeight, double remainingWorkWeight) {
         super(k, showViz);
+        scores = new LoadTree(k);
+        setWeights(queueLengthWeight, remainingWorkWeight);
+    }
+
+    // Returns the weight of the queue length, normalized so the two weights add up to 1.
+    public double getQueueLengthWeight() {
+        return queueLengthWeight / (queueLengthWeight + remainingWorkWeight);
+    }
+
+    // Returns the weight of the remaining work, normalized so the two weights add up to 1.
+    public double getRemainingWorkWeight() {
+        return remainingWorkWeight / (queueLengthWeight + remainingWorkWeight);
+    }
+
+    // Changes the weights and rescores every server, which costs O(k).
+    protected void setWeights(double queueLengthWeight, double remainingWorkWeight) {
+        if (queueLengthWeight < 0 || remainingWorkWeight < 0 || queueLengthWeight + remainingWorkWeight == 0) {
+            throw new IllegalArgumentException("Weights must be non-negative and not both 0: "
+                    + queueLengthWeight + ", " + remainingWorkWeight);
+        }
+        this.queueLengthWeight = queueLengthWeight;
+        this.remainingWorkWeight = remainingWorkWeight;
+        for (int i = 0; i < scores.size(); i++) {
+            serverUpdated(i);
+        }
     }
 
     // Selects a server for the incoming job based on a calculated score, aiming for dynamic load balancing.
+    // The server with the lowest score wins; ties go to the first such server in the list.
     @Override
     public Server pickServer(Job j) {
-        Server selectedServer = serverList.get(0);
-        double bestScore = Double.MAX_VALUE;
-        
-        // Iterate through each server to calculate and compare scores.
-        for (Server server : serverList) {
-            double score = calculateServerScore(server, j);
-            if (score < bestScore) {
-                bestScore = score;
-                selectedServer = server;
-            }
+        if (scores.minKey() < Double.MAX_VALUE) {
+            return serverList.get(scores.argMin());
         }
-        return selectedServer;
+        return serverList.get(0);
+    }
+
+    // Keeps the server's score in the tree up to date.
+    @Override
+    protected void serverUpdated(int serverIndex) {
+        scores.update(serverIndex, calculateServerScore(serverIndex));
+    }
+
+    // Calculates a server's score based on its queue length and remaining work, using the current weights.
+    private double calculateServerScore(int serverIndex) {
+        return queueLengthWeight * getQueueLength(serverIndex) + remainingWorkWeight * getRemainingWork(serverIndex);
     }
 
-    // Calculates a server's score based on its queue length and remaining work, using predefined weights.
-    private double calculateServerScore(Server server, Job job) {
-        double queueLengthWeight = 0.5; // Weight for the queue length component of the score
-        double remainingWorkWeight = 0.5; // Weight for the remaining work component of the score
-        return queueLengthWeight * server.size() + remainingWorkWeight * server.remainingWorkInQueue();
+    // Writes the weights, so a restored dispatcher keeps any that were given or learned.
+    @Override
+    protected void writePolicyState(DataOutputStream out) throws IOException {
+        out.writeDouble(queueLengthWeight);
+        out.writeDouble(remainingWorkWeight);
+    }
+
+    @Override
+    protected void readPolicyState(DataInputStream in) throws IOException {
+        queueLengthWeight = in.readDouble();
+        remainingWorkWeight = in.readDouble();
     }
 }
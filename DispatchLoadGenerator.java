@@ -0,0 +1,155 @@
+/*
+  file name:      DispatchLoadGenerator.java
+  Authors:        Vishnu Varadhan
+  last modified:  10/18/2026
+  Class Purpose:  Local load generator for a DispatchService. It submits jobs with sizes drawn like JobMaker's,
+                  in batches, and plays the part of the backends as well: it keeps a window of outstanding jobs and
+                  reports the oldest one as finished whenever the window is full, so the service sees a steady mix
+                  of submits and completions. At the end it completes every job, asks for the service's status to
+                  make sure everything has been handled, and reports the decisions per second, the round-trip time
+                  of a batch, and how many jobs each backend received.
+
+                  Run with: java DispatchLoadGenerator [port] [number of jobs] [window] [batch size] [number of backends]
+*/
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+public class DispatchLoadGenerator {
+
+    // What a run of the generator observed.
+    public static class Report {
+        public final long jobs;
+        public final double seconds;
+        public final long[] jobsPerBackend;
+        public final LatencyHistogram batchRoundTrips; // microseconds
+        public final int outstandingAtEnd;
+
+        Report(long jobs, double seconds, long[] jobsPerBackend, LatencyHistogram batchRoundTrips, int outstandingAtEnd) {
+            this.jobs = jobs;
+            this.seconds = seconds;
+            this.jobsPerBackend = jobsPerBackend;
+            this.batchRoundTrips = batchRoundTrips;
+            this.outstandingAtEnd = outstandingAtEnd;
+        }
+
+        // Returns the number of decisions per second.
+        public double getDecisionsPerSecond() {
+            return jobs / seconds;
+        }
+
+        public String toString() {
+            StringBuilder perBackend = new StringBuilder();
+            for (long count : jobsPerBackend) {
+                perBackend.append(perBackend.length() == 0 ? "" : " ").append(count);
+            }
+            return jobs + " jobs in " + seconds + " s: " + getDecisionsPerSecond() + " decisions/s"
+                    + "\nbatch round trip (us): " + batchRoundTrips
+                    + "\noutstanding at the end: " + outstandingAtEnd
+                    + "\njobs per backend: " + perBackend;
+        }
+    }
+
+    // Submits numJobs jobs to the service on the given local port, batchSize at a time, completing the oldest
+    // outstanding job whenever more than window are outstanding. numBackends only sizes the per-backend counts.
+    public static Report run(int port, long numJobs, int window, int batchSize, int numBackends) throws IOException {
+        JobMaker jobMaker = new JobMaker(1, 100, 7);
+        long[] outstanding = new long[Integer.highestOneBit(Math.max(window, batchSize)) << 1]; // ring of ids, oldest first
+        int oldest = 0;
+        int numOutstanding = 0;
+        long[] jobsPerBackend = new long[numBackends];
+        LatencyHistogram roundTrips = new LatencyHistogram();
+        int mask = outstanding.length - 1;
+
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress("127.0.0.1", port))) {
+            channel.socket().setTcpNoDelay(true);
+            ByteBuffer out = ByteBuffer.allocateDirect(2 * batchSize * DispatchService.REQUEST_BYTES);
+            ByteBuffer in = ByteBuffer.allocateDirect(batchSize * DispatchService.ANSWER_BYTES);
+            long start = System.nanoTime();
+            long nextId = 0;
+            while (nextId < numJobs) {
+                // One batch: the completions that make room for it, then its submits
+                int batch = (int) Math.min(batchSize, numJobs - nextId);
+                out.clear();
+                while (numOutstanding + batch > window && numOutstanding > 0) {
+                    out.put(DispatchService.COMPLETE).putLong(outstanding[oldest]).putDouble(0);
+                    oldest = (oldest + 1) & mask;
+                    numOutstanding--;
+                }
+                for (int i = 0; i < batch; i++) {
+                    out.put(DispatchService.SUBMIT).putLong(nextId + i).putDouble(jobMaker.getNextJob().getProcessingTimeNeeded());
+                }
+                long sent = System.nanoTime();
+                out.flip();
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+                in.clear();
+                in.limit(batch * DispatchService.ANSWER_BYTES);
+                while (in.hasRemaining()) {
+                    if (channel.read(in) < 0) {
+                        throw new IOException("The service closed the connection");
+                    }
+                }
+                roundTrips.record((System.nanoTime() - sent) / 1e3);
+                in.flip();
+                for (int i = 0; i < batch; i++) {
+                    long id = in.getLong();
+                    int backend = in.getInt();
+                    if (backend < 0 || backend >= numBackends) {
+                        throw new IOException("Job " + id + " was not dispatched: " + backend);
+                    }
+                    jobsPerBackend[backend]++;
+                    outstanding[(oldest + numOutstanding) & mask] = id;
+                    numOutstanding++;
+                }
+                nextId += batch;
+            }
+
+            // Finish every job, then wait until the service has handled all of it
+            out.clear();
+            while (numOutstanding > 0) {
+                if (out.remaining() < DispatchService.REQUEST_BYTES) {
+                    out.flip();
+                    while (out.hasRemaining()) {
+                        channel.write(out);
+                    }
+                    out.clear();
+                }
+                out.put(DispatchService.COMPLETE).putLong(outstanding[oldest]).putDouble(0);
+                oldest = (oldest + 1) & mask;
+                numOutstanding--;
+            }
+            out.put(DispatchService.STATUS).putLong(-1).putDouble(0);
+            out.flip();
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            in.clear();
+            in.limit(DispatchService.ANSWER_BYTES);
+            while (in.hasRemaining()) {
+                if (channel.read(in) < 0) {
+                    throw new IOException("The service closed the connection");
+                }
+            }
+            in.flip();
+            in.getLong();
+            int outstandingAtEnd = in.getInt();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            return new Report(numJobs, seconds, jobsPerBackend, roundTrips, outstandingAtEnd);
+        }
+    }
+
+    // Entry point: runs the generator against a service on this machine.
+    // Optional arguments: port, number of jobs, window of outstanding jobs, batch size and number of backends.
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7070;
+        long numJobs = args.length > 1 ? Long.parseLong(args[1]) : 5000000;
+        int window = args.length > 2 ? Integer.parseInt(args[2]) : 3400;
+        int batchSize = args.length > 3 ? Integer.parseInt(args[3]) : 512;
+        int numBackends = args.length > 4 ? Integer.parseInt(args[4]) : 34;
+        System.out.println(run(port, numJobs, window, batchSize, numBackends));
+    }
+}
@@ -0,0 +1,336 @@
+/*
+  file name:      DispatchService.java
+  Authors:        Vishnu Varadhan
+  last modified:  10/18/2026
+  Class Purpose:  Runs a JobDispatcher policy as an online front-end load balancer over TCP. Clients submit jobs
+                  with an id and an estimated size; the service calls the policy's pickServer and replies with the
+                  index of the chosen backend. When a backend finishes a job, a completion for its id updates the
+                  matching BackendServer, so the policy always sees the outstanding work at every backend. Time is
+                  wall-clock seconds since the service started.
+
+                  All connections are served by one thread with a non-blocking NIO selector. Every message has a
+                  fixed size, so each read decodes as many whole messages as arrived, answers them into one output
+                  buffer, and sends the answers with a single write. A connection whose answers cannot be written
+                  yet stops being read until they are, so a slow client cannot make the service buffer without bound.
+
+                  Messages to the service, 17 bytes each, in network byte order:
+                      byte type   1 = submit, 2 = complete, 3 = status
+                      long id     the job id, unique among outstanding jobs (any value for status)
+                      double size the estimated processing time (submit only; ignored otherwise)
+                  Answers, 12 bytes each: the long id, then an int that is the backend index for a submit (-1 if
+                  the id is already outstanding) or the number of outstanding jobs for a status. Completions are
+                  not answered; a status answer means every message sent before it has been handled.
+
+                  Run with: java DispatchService [port] [dispatcher type] [number of backends]
+*/
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+
+public class DispatchService implements AutoCloseable {
+    public static final byte SUBMIT = 1;
+    public static final byte COMPLETE = 2;
+    public static final byte STATUS = 3;
+    public static final int REQUEST_BYTES = 17;
+    public static final int ANSWER_BYTES = 12;
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final JobDispatcher dispatcher;
+    private final PendingJobs pending;
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final long startNanos;
+    private volatile boolean running;
+    private long decisions;
+    private long completions;
+    private long unknownCompletions;
+
+    // Constructor: Serves the given dispatcher on a local port (0 picks a free one). The dispatcher's servers are
+    // replaced by BackendServers, so it must not have handled any jobs yet.
+    public DispatchService(JobDispatcher dispatcher, int port) throws IOException {
+        this.dispatcher = dispatcher;
+        dispatcher.useServers(BackendServer::new);
+        this.pending = new PendingJobs();
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress("127.0.0.1", port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.startNanos = System.nanoTime();
+        this.running = true;
+    }
+
+    // Returns the port the service listens on.
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    // Returns the dispatcher. Only safe to use from the service thread, or after run has returned.
+    public JobDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    // Returns the number of submits answered with a backend.
+    public long getDecisions() {
+        return decisions;
+    }
+
+    // Returns the number of completions applied to a backend.
+    public long getCompletions() {
+        return completions;
+    }
+
+    // Returns the number of completions for ids that were not outstanding, which are ignored.
+    public long getUnknownCompletions() {
+        return unknownCompletions;
+    }
+
+    // Serves connections on the calling thread until stop is called.
+    public void run() throws IOException {
+        while (running) {
+            selector.select();
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (!key.isValid()) {
+                    continue;
+                }
+                try {
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        serve(key);
+                    }
+                } catch (IOException e) {
+                    // A broken connection only ends that client's session
+                    closeConnection(key);
+                }
+            }
+        }
+    }
+
+    // Makes run return. May be called from any thread.
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    // Closes the listening socket and every connection.
+    @Override
+    public void close() throws IOException {
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        channel.register(selector, SelectionKey.OP_READ, new Connection());
+    }
+
+    // Reads whatever has arrived, answers every whole message that fits in the output buffer, and writes the answers.
+    private void serve(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        if (key.isReadable() && channel.read(connection.in) < 0) {
+            closeConnection(key);
+            return;
+        }
+        if (key.isWritable()) {
+            flush(channel, connection);
+        }
+        // Answer everything already buffered; a client waiting for those answers may send nothing more
+        do {
+            handleMessages(connection);
+            flush(channel, connection);
+        } while (connection.out.position() == 0 && connection.in.position() >= REQUEST_BYTES);
+        // Stop reading while answers are waiting to be written, until the client catches up
+        key.interestOps(connection.out.position() > 0 ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    private void handleMessages(Connection connection) throws IOException {
+        ByteBuffer in = connection.in;
+        ByteBuffer out = connection.out;
+        in.flip();
+        double now = (System.nanoTime() - startNanos) / 1e9;
+        while (in.remaining() >= REQUEST_BYTES && out.remaining() >= ANSWER_BYTES) {
+            byte type = in.get();
+            long id = in.getLong();
+            double size = in.getDouble();
+            switch (type) {
+                case SUBMIT:
+                    if (pending.contains(id)) {
+                        out.putLong(id).putInt(-1);
+                        break;
+                    }
+                    int backend = dispatcher.assignJob(Math.max(now, dispatcher.getTime()), size);
+                    pending.put(id, backend, dispatcher.getTime(), size);
+                    out.putLong(id).putInt(backend);
+                    decisions++;
+                    break;
+                case COMPLETE:
+                    int slot = pending.find(id);
+                    if (slot < 0) {
+                        unknownCompletions++;
+                        break;
+                    }
+                    dispatcher.completeJob(pending.servers[slot], pending.submitTimes[slot], pending.sizes[slot], now);
+                    pending.remove(slot);
+                    completions++;
+                    break;
+                case STATUS:
+                    out.putLong(id).putInt(pending.size());
+                    break;
+                default:
+                    throw new IOException("Unknown message type " + type);
+            }
+        }
+        in.compact();
+    }
+
+    private static void flush(SocketChannel channel, Connection connection) throws IOException {
+        ByteBuffer out = connection.out;
+        if (out.position() == 0) {
+            return;
+        }
+        out.flip();
+        channel.write(out);
+        out.compact();
+    }
+
+    private static void closeConnection(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // Nothing more to do for a connection that is already broken
+        }
+    }
+
+    // The input and output buffers of one client connection.
+    private static class Connection {
+        final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    }
+
+    // Outstanding jobs by id: an open-addressing hash table with linear probing over parallel primitive arrays, so
+    // submitting and completing a job allocate nothing once the table is large enough.
+    private static class PendingJobs {
+        private long[] ids;
+        int[] servers;        // -1 marks an empty slot
+        double[] submitTimes;
+        double[] sizes;
+        private int count;
+
+        PendingJobs() {
+            allocate(1 << 12);
+        }
+
+        int size() {
+            return count;
+        }
+
+        boolean contains(long id) {
+            return find(id) >= 0;
+        }
+
+        // Returns the slot of a job, or -1 if it is not outstanding.
+        int find(long id) {
+            int mask = ids.length - 1;
+            for (int slot = hash(id) & mask; servers[slot] >= 0; slot = (slot + 1) & mask) {
+                if (ids[slot] == id) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        void put(long id, int server, double submitTime, double size) {
+            if (2 * (count + 1) > ids.length) {
+                grow();
+            }
+            int mask = ids.length - 1;
+            int slot = hash(id) & mask;
+            while (servers[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            ids[slot] = id;
+            servers[slot] = server;
+            submitTimes[slot] = submitTime;
+            sizes[slot] = size;
+            count++;
+        }
+
+        // Empties a slot, then moves back any later entry of the probe run that the hole would cut off from its home.
+        void remove(int slot) {
+            int mask = ids.length - 1;
+            int hole = slot;
+            for (int next = (hole + 1) & mask; servers[next] >= 0; next = (next + 1) & mask) {
+                int home = hash(ids[next]) & mask;
+                // The entry may move into the hole only if its home is not cyclically within (hole, next]
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    ids[hole] = ids[next];
+                    servers[hole] = servers[next];
+                    submitTimes[hole] = submitTimes[next];
+                    sizes[hole] = sizes[next];
+                    hole = next;
+                }
+            }
+            servers[hole] = -1;
+            count--;
+        }
+
+        private void allocate(int capacity) {
+            ids = new long[capacity];
+            servers = new int[capacity];
+            Arrays.fill(servers, -1);
+            submitTimes = new double[capacity];
+            sizes = new double[capacity];
+            count = 0;
+        }
+
+        private void grow() {
+            long[] oldIds = ids;
+            int[] oldServers = servers;
+            double[] oldSubmitTimes = submitTimes;
+            double[] oldSizes = sizes;
+            allocate(2 * oldIds.length);
+            for (int i = 0; i < oldIds.length; i++) {
+                if (oldServers[i] >= 0) {
+                    put(oldIds[i], oldServers[i], oldSubmitTimes[i], oldSizes[i]);
+                }
+            }
+        }
+
+        private static int hash(long id) {
+            long h = id * 0x9e3779b97f4a7c15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    // Entry point: serves a dispatcher until the process is stopped.
+    // Optional arguments: port, dispatcher type (see ExperimentSweep.createDispatcher) and number of backends.
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7070;
+        String type = args.length > 1 ? args[1] : "least";
+        int numBackends = args.length > 2 ? Integer.parseInt(args[2]) : 34;
+        try (DispatchService service = new DispatchService(ExperimentSweep.createDispatcher(type, numBackends, false, 1), port)) {
+            System.out.println("Dispatching to " + numBackends + " backends with " + type + " on port " + service.getPort());
+            service.run();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+  file name:      DispatcherStats.java
+  Authors:        Vishnu Varadhan
+  last modified:  10/18/2026
+  Class Purpose:  Live statistics of one JobDispatcher, registered as a JMX MBean under
+                  ServerFarm:type=JobDispatcher,name=<name>. The simulation thread is the only writer: every
+                  publishEvery jobs it copies the dispatcher's clock, job count, running average wait and the
+                  mirrored per-server loads into a new immutable snapshot and publishes it with a single volatile
+                  write. JMX clients only ever read the latest snapshot, so watching a run takes no locks and never
+                  touches the servers the simulation is changing, and a run that is not registered pays one null
+                  check per job.
+*/
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class DispatcherStats implements DispatcherStatsMXBean {
+
+    // Everything a client can read, as of one moment of the simulation.
+    private static class Snapshot {
+        final double simulatedTime;
+        final long jobsHandled;
+        final double jobsPerSecond;
+        final double averageWaitingTime;
+        final int[] queueLengths;
+        final double[] remainingWork;
+        final long publishedAt;
+        final long publishedNanos;
+
+        Snapshot(double simulatedTime, long jobsHandled, double jobsPerSecond, double averageWaitingTime,
+                 int[] queueLengths, double[] remainingWork, long publishedAt, long publishedNanos) {
+            this.simulatedTime = simulatedTime;
+            this.jobsHandled = jobsHandled;
+            this.jobsPerSecond = jobsPerSecond;
+            this.averageWaitingTime = averageWaitingTime;
+            this.queueLengths = queueLengths;
+            this.remainingWork = remainingWork;
+            this.publishedAt = publishedAt;
+            this.publishedNanos = publishedNanos;
+        }
+    }
+
+    private final String dispatcherType;
+    private final int numServers;
+    private final int publishEvery;
+    private final ObjectName objectName;
+    private volatile Snapshot current;
+
+    // Constructor: Creates the statistics of a dispatcher, published every publishEvery jobs. Use register to also
+    // make them visible over JMX.
+    public DispatcherStats(JobDispatcher dispatcher, String name, int publishEvery) {
+        if (publishEvery <= 0) {
+            throw new IllegalArgumentException("Statistics must be published at least every job: " + publishEvery);
+        }
+        this.dispatcherType = dispatcher.getClass().getSimpleName();
+        this.numServers = dispatcher.getServerList().size();
+        this.publishEvery = publishEvery;
+        try {
+            this.objectName = new ObjectName("ServerFarm:type=JobDispatcher,name=" + ObjectName.quote(name));
+        } catch (JMException e) {
+            throw new IllegalArgumentException("Not a valid MBean name: " + name, e);
+        }
+        long now = System.nanoTime();
+        this.current = new Snapshot(0, 0, 0, Double.NaN, new int[numServers], new double[numServers], System.currentTimeMillis(), now);
+    }
+
+    // Returns the number of jobs between two snapshots.
+    public int getPublishEvery() {
+        return publishEvery;
+    }
+
+    // Returns the name the MBean is registered under.
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    // Registers the MBean with the platform MBean server, replacing any earlier one of the same name.
+    public void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(this, objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register " + objectName, e);
+        }
+    }
+
+    // Removes the MBean from the platform MBean server, if it is registered.
+    public void unregister() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot unregister " + objectName, e);
+        }
+    }
+
+    // Publishes a new snapshot of the dispatcher. Must be called on the thread that runs the simulation.
+    public void publish(JobDispatcher dispatcher) {
+        Snapshot previous = current;
+        long nanos = System.nanoTime();
+        long jobsHandled = dispatcher.getNumJobsHandled();
+        double seconds = (nanos - previous.publishedNanos) / 1e9;
+        double jobsPerSecond = seconds > 0 ? (jobsHandled - previous.jobsHandled) / seconds : previous.jobsPerSecond;
+        long finished = dispatcher.getNumJobsFinished();
+        double averageWaitingTime = finished == 0 ? Double.NaN : dispatcher.getTotalWaitingTime() / finished;
+        int[] queueLengths = new int[numServers];
+        double[] remainingWork = new double[numServers];
+        for (int i = 0; i < numServers; i++) {
+            queueLengths[i] = dispatcher.getQueueLength(i);
+            remainingWork[i] = dispatcher.getRemainingWork(i);
+        }
+        current = new Snapshot(dispatcher.getTime(), jobsHandled, jobsPerSecond, averageWaitingTime,
+                queueLengths, remainingWork, System.currentTimeMillis(), nanos);
+    }
+
+    public String getDispatcherType() {
+        return dispatcherType;
+    }
+
+    public int getNumServers() {
+        return numServers;
+    }
+
+    public double getSimulatedTime() {
+        return current.simulatedTime;
+    }
+
+    public long getJobsHandled() {
+        return current.jobsHandled;
+    }
+
+    public double getJobsPerSecond() {
+        return current.jobsPerSecond;
+    }
+
+    public double getAverageWaitingTime() {
+        return current.averageWaitingTime;
+    }
+
+    // Returns a copy, so a client cannot change the published snapshot.
+    public int[] getQueueLengths() {
+        return current.queueLengths.clone();
+    }
+
+    // Returns a copy, so a client cannot change the published snapshot.
+    public double[] getRemainingWork() {
+        return current.remainingWork.clone();
+    }
+
+    public long getPublishedAt() {
+        return current.publishedAt;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+  file name:      DispatcherStatsMXBean.java
+  Authors:        Vishnu Varadhan
+  last modified:  10/18/2026
+  Class Purpose:  Management interface of the live statistics a JobDispatcher publishes over JMX (see
+                  DispatcherStats), so a long sweep can be watched from JConsole or any other JMX client. Every
+                  value comes from the last snapshot the simulation published, not from the live servers.
+*/
+
+public interface DispatcherStatsMXBean {
+
+    /**
+     * Returns the class of the dispatching policy.
+     * @return the simple class name of the dispatcher.
+     */
+    public String getDispatcherType();
+
+    /**
+     * Returns the number of servers.
+     * @return the number of servers in the farm.
+     */
+    public int getNumServers();
+
+    /**
+     * Returns the simulated time of the snapshot.
+     * @return the dispatcher's clock when the snapshot was published.
+     */
+    public double getSimulatedTime();
+
+    /**
+     * Returns the number of jobs handled.
+     * @return the jobs dispatched when the snapshot was published.
+     */
+    public long getJobsHandled();
+
+    /**
+     * Returns the rate at which jobs were handled between the last two snapshots.
+     * @return jobs handled per second of wall-clock time.
+     */
+    public double getJobsPerSecond();
+
+    /**
+     * Returns the average waiting time of the jobs finished so far.
+     * @return the running average waiting time, or NaN before any job has finished.
+     */
+    public double getAverageWaitingTime();
+
+    /**
+     * Returns the queue length of every server.
+     * @return the number of jobs at each server, in server order.
+     */
+    public int[] getQueueLengths();
+
+    /**
+     * Returns the remaining work of every server.
+     * @return the remaining work at each server, in server order.
+     */
+    public double[] getRemainingWork();
+
+    /**
+     * Returns when the snapshot was published.
+     * @return the wall-clock time of the snapshot, in milliseconds since the epoch.
+     */
+    public long getPublishedAt();
+}
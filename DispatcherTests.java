@@ -0,0 +1,625 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+
+public class DispatcherTests {
+
+    // The server a left-to-right linear scan with a strict less-than comparison would pick for the given load keys.
+    private static int linearScan(double[] keys) {
+        int best = 0;
+        for (int i = 1; i < keys.length; i++) {
+            if (keys[i] < keys[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    // Replays a seeded job stream and checks every decision against a linear scan over the dispatcher's load key.
+    private static void checkAgainstLinearScan(String type, int numServers) {
+        JobDispatcher dispatcher = ExperimentSweep.createDispatcher(type, numServers, false, 1);
+        JobMaker jobMaker = new JobMaker(100.0 / (0.95 * numServers), 100, 7);
+        double[] keys = new double[numServers];
+        for (int n = 0; n < 50000; n++) {
+            Job job = jobMaker.getNextJob();
+            dispatcher.advanceTimeTo(job.getArrivalTime());
+            for (int i = 0; i < numServers; i++) {
+                Server server = dispatcher.getServerList().get(i);
+                switch (type) {
+                    case "shortest":
+                        keys[i] = server.size();
+                        break;
+                    case "least":
+                        keys[i] = server.remainingWorkInQueue();
+                        break;
+                    case "dlb":
+                        keys[i] = 0.5 * server.size() + 0.5 * server.remainingWorkInQueue();
+                        break;
+                    default:
+                        keys[i] = server.size() > 0 ? server.remainingWorkInQueue() / server.size() : 0;
+                }
+            }
+            int expected = linearScan(keys);
+            int picked = dispatcher.pickServer(job).getServerIndex();
+            assert picked == expected : "Error in " + type + " pickServer: job " + n + " picked " + picked + ", expected " + expected;
+            dispatcher.handleJob(job);
+        }
+    }
+
+    // The processing time still needed by every job in the farm, with every server brought up to the farm's clock.
+    private static double outstandingWork(JobDispatcher dispatcher) {
+        double work = 0;
+        for (Server server : dispatcher.getServerList()) {
+            server.processTo(dispatcher.getTime());
+            for (Job job : server.getQueuedJobs()) {
+                work += job.getProcessingTimeRemaining();
+            }
+        }
+        return work;
+    }
+
+    public static void main(String[] args) throws IOException, JMException {
+        // case 1: testing LoadTree update, argMin and tie-breaking
+        {
+            // setup
+            LoadTree tree = new LoadTree(5);
+            tree.update(0, 3);
+            tree.update(1, 2);
+            tree.update(2, 2);
+            tree.update(3, 5);
+            tree.update(4, 4);
+
+            // verify
+            System.out.println(tree.argMin() + " == 1");
+
+            // test
+            assert tree.argMin() == 1 : "Error in LoadTree::argMin() tie-breaking";
+            tree.update(1, 6);
+            assert tree.argMin() == 2 : "Error in LoadTree::update() raising the minimum";
+            tree.update(4, 1);
+            assert tree.argMin() == 4 : "Error in LoadTree::update() lowering a key";
+            assert tree.minKey() == 1 : "Error in LoadTree::minKey()";
+        }
+
+        // case 2: testing that the indexed dispatchers pick the same servers as a linear scan
+        {
+            for (String type : new String[] {"shortest", "least", "dlb", "timeSensitive"}) {
+                for (int numServers : new int[] {1, 4, 34, 100}) {
+                    checkAgainstLinearScan(type, numServers);
+                }
+                System.out.println(type + " matches the linear scan");
+            }
+        }
+
+        // case 3: testing IdleServerSet add, remove and the wrapping search
+        {
+            // setup
+            IdleServerSet idle = new IdleServerSet(10000);
+            boolean[] expected = new boolean[10000];
+            SplitMix64 rand = new SplitMix64(9);
+            for (int n = 0; n < 200000; n++) {
+                int server = rand.nextInt(10000);
+                // keep the set sparse so the search has to cross empty words and summary words
+                if (rand.nextInt(8) == 0) {
+                    idle.add(server);
+                    expected[server] = true;
+                } else {
+                    idle.remove(server);
+                    expected[server] = false;
+                }
+                int from = rand.nextInt(10000);
+                int next = -1;
+                for (int i = 0; i < 10000 && next < 0; i++) {
+                    if (expected[(from + i) % 10000]) {
+                        next = (from + i) % 10000;
+                    }
+                }
+                assert idle.next(from) == next : "Error in IdleServerSet::next(): " + idle.next(from) + " != " + next;
+            }
+
+            // verify
+            System.out.println(idle.next(0) + " is idle");
+
+            // test
+            int count = 0;
+            for (boolean isIdle : expected) {
+                count += isIdle ? 1 : 0;
+            }
+            assert idle.size() == count : "Error in IdleServerSet::size()";
+        }
+
+        // case 4: testing that join-idle-queue sends jobs to idle servers whenever there are any
+        {
+            JobDispatcher dispatcher = ExperimentSweep.createDispatcher("jiq", 20, false, 1);
+            JobMaker jobMaker = new JobMaker(100.0 / (0.9 * 20), 100, 3);
+            for (int n = 0; n < 50000; n++) {
+                Job job = jobMaker.getNextJob();
+                dispatcher.advanceTimeTo(job.getArrivalTime());
+                boolean anyIdle = false;
+                for (Server server : dispatcher.getServerList()) {
+                    anyIdle |= server.size() == 0;
+                }
+                Server picked = dispatcher.pickServer(job);
+                assert !anyIdle || picked.size() == 0 : "Error in JoinIdleQueueDispatcher::pickServer(): busy server picked";
+                dispatcher.handleJob(job);
+            }
+            System.out.println("jiq picks idle servers");
+        }
+
+        // case 5: testing that a recorded trace replays the same jobs as the JobMaker it was recorded from
+        {
+            // setup
+            Path file = Files.createTempFile("jobs", ".trace");
+            try (JobTraceWriter writer = new JobTraceWriter(file)) {
+                writer.write(new JobMaker(3, 100, 11), 20000);
+            }
+            JobDispatcher fromMaker = ExperimentSweep.createDispatcher("least", 34, false, 1);
+            JobDispatcher fromTrace = ExperimentSweep.createDispatcher("least", 34, false, 1);
+            JobMaker jobMaker = new JobMaker(3, 100, 11);
+            for (int n = 0; n < 20000; n++) {
+                fromMaker.handleJob(jobMaker.getNextJob());
+            }
+            long handled;
+            try (MappedJobTrace trace = new MappedJobTrace(file)) {
+                handled = fromTrace.handleJobs(trace, Long.MAX_VALUE);
+            }
+            Files.delete(file);
+            fromMaker.finishUp();
+            fromTrace.finishUp();
+
+            // verify
+            System.out.println(handled + " == 20000");
+
+            // test
+            assert handled == 20000 : "Error in MappedJobTrace::size()";
+            assert fromMaker.getAverageWaitingTime() == fromTrace.getAverageWaitingTime() : "Error in MappedJobTrace replay";
+        }
+
+        // case 6: testing that a restored checkpoint continues exactly like the original run
+        {
+            for (String type : new String[] {"random", "round", "least", "timeSensitive", "powerOfTwo", "jiq", "dlbAdaptive", "sita"}) {
+                // setup
+                JobDispatcher original = ExperimentSweep.createDispatcher(type, 10, false, 3);
+                JobMaker jobMaker = new JobMaker(100.0 / (0.95 * 10), 100, 5);
+                original.handleJobs(jobMaker, 20000);
+                Path file = Files.createTempFile("simulation", ".checkpoint");
+                SimulationCheckpoint.capture(original, jobMaker).save(file);
+                SimulationCheckpoint checkpoint = SimulationCheckpoint.load(file);
+                Files.delete(file);
+                JobDispatcher restored = checkpoint.restoreDispatcher();
+                JobMaker restoredJobMaker = checkpoint.restoreJobMaker();
+                original.handleJobs(jobMaker, 20000);
+                restored.handleJobs(restoredJobMaker, 20000);
+                original.finishUp();
+                restored.finishUp();
+
+                // verify
+                System.out.println(type + ": " + restored.getAverageWaitingTime() + " == " + original.getAverageWaitingTime());
+
+                // test
+                assert restored.getAverageWaitingTime() == original.getAverageWaitingTime() : "Error in SimulationCheckpoint::restoreDispatcher() for " + type;
+                assert restored.getWaitingTimeHistogram().getTotalCount() == 40000 : "Error in restored waiting time histogram for " + type;
+            }
+
+            // dispatchers built with settings other than the defaults the restore constructs them with
+            JobDispatcher[] customized = {new SITADispatcher(10, false, 3, 500), new AdaptiveDLBDispatcher(10, false, 2000)};
+            for (JobDispatcher original : customized) {
+                // setup
+                JobMaker jobMaker = new JobMaker(100.0 / (0.95 * 10), 100, 5);
+                original.handleJobs(jobMaker, 20000);
+                SimulationCheckpoint checkpoint = SimulationCheckpoint.capture(original, jobMaker);
+                JobDispatcher restored = checkpoint.restoreDispatcher();
+                JobMaker restoredJobMaker = checkpoint.restoreJobMaker();
+                original.handleJobs(jobMaker, 30000);
+                restored.handleJobs(restoredJobMaker, 30000);
+                original.finishUp();
+                restored.finishUp();
+
+                // verify
+                String name = original.getClass().getName();
+                System.out.println(name + ": " + restored.getAverageWaitingTime() + " == " + original.getAverageWaitingTime());
+
+                // test
+                assert restored.getAverageWaitingTime() == original.getAverageWaitingTime() : "Error in SimulationCheckpoint::restoreDispatcher() for " + name;
+            }
+        }
+
+        // case 7: testing that forking onto fewer servers keeps every job
+        {
+            // setup
+            JobDispatcher original = ExperimentSweep.createDispatcher("least", 10, false, 3);
+            JobMaker jobMaker = new JobMaker(100.0 / (0.95 * 10), 100, 5);
+            original.handleJobs(jobMaker, 20000);
+            SimulationCheckpoint checkpoint = SimulationCheckpoint.capture(original, jobMaker);
+            List<JobDispatcher> forks = checkpoint.fork(new String[] {"shortest", "dlb"}, new int[] {7, 12}, 1, 1000, 2);
+
+            // verify
+            System.out.println(forks.get(0).getWaitingTimeHistogram().getTotalCount() + " == 21000");
+
+            // test
+            for (JobDispatcher fork : forks) {
+                int processed = 0;
+                for (Server server : fork.getServerList()) {
+                    processed += server.getNumJobsProcessed();
+                    assert server.size() == 0 : "Error in SimulationCheckpoint::fork(): jobs left after finishUp";
+                }
+                assert processed == 21000 : "Error in SimulationCheckpoint::fork(): " + processed + " jobs processed";
+                assert fork.getWaitingTimeHistogram().getTotalCount() == 21000 : "Error in SimulationCheckpoint::fork() statistics";
+            }
+        }
+
+        // case 8: testing that sharded time advance gives exactly the results of the serial one
+        {
+            for (String type : new String[] {"least", "jiq", "round"}) {
+                // setup
+                JobDispatcher serial = ExperimentSweep.createDispatcher(type, 1000, false, 1);
+                JobDispatcher sharded = ExperimentSweep.createDispatcher(type, 1000, false, 1);
+                sharded.useShards(4);
+                JobMaker jobMaker = new JobMaker(100.0 / (0.95 * 1000), 100, 13);
+                for (int n = 0; n < 100000; n++) {
+                    Job job = jobMaker.getNextJob();
+                    serial.handleJob(job);
+                    sharded.handleJob(job);
+                }
+                serial.finishUp();
+                sharded.finishUp();
+                sharded.useShards(1);
+
+                // verify
+                System.out.println(type + ": " + sharded.getAverageWaitingTime() + " == " + serial.getAverageWaitingTime());
+
+                // test
+                assert sharded.getAverageWaitingTime() == serial.getAverageWaitingTime() : "Error in sharded advanceTimeTo() for " + type;
+                assert sharded.getWaitingTimeHistogram().getValueAtPercentile(99) == serial.getWaitingTimeHistogram().getValueAtPercentile(99) : "Error in sharded waiting times for " + type;
+            }
+        }
+
+        // case 9: testing that SteadyStateEstimator discards a start-up transient and stops at the target precision
+        {
+            // setup: 300 batches of a decaying transient, then independent batches around a mean of 50
+            SteadyStateEstimator estimator = new SteadyStateEstimator(0.01);
+            SplitMix64 rand = new SplitMix64(21);
+            SteadyStateEstimator.Report report = null;
+            for (int i = 0; i < 100000 && (report == null || !report.converged); i++) {
+                double startUp = i < 300 ? 200 * (300 - i) / 300.0 : 0;
+                double batchMean = 50 + startUp + 10 * (rand.nextDouble() - 0.5);
+                estimator.addBatch(1000 * batchMean, 1000, 1000L * (i + 1));
+                if (estimator.isCheckDue()) {
+                    report = estimator.estimate();
+                }
+            }
+
+            // verify
+            System.out.println(report);
+
+            // test
+            assert report.converged : "Error in SteadyStateEstimator::estimate(): did not converge";
+            assert report.truncatedJobs >= 200000 && report.truncatedJobs <= 400000 : "Error in SteadyStateEstimator truncation: " + report.truncatedJobs;
+            assert Math.abs(report.mean - 50) <= report.halfWidth * 2 : "Error in SteadyStateEstimator mean: " + report.mean;
+            assert report.halfWidth <= 0.5 : "Error in SteadyStateEstimator half-width: " + report.halfWidth;
+        }
+
+        // case 10: testing AnalyticEstimator against the textbook formulas, a simulation, and the sweep's screening
+        {
+            // setup
+            AnalyticEstimator.Prediction random = AnalyticEstimator.predict("random", 1, 2, 1);
+            AnalyticEstimator.Prediction round = AnalyticEstimator.predict("round", 1, 2, 1);
+            AnalyticEstimator.Prediction least = AnalyticEstimator.predict("least", 1, 2, 1);
+            JobDispatcher dispatcher = ExperimentSweep.createDispatcher("round", 10, false, 1);
+            SteadyStateEstimator.Report report = SteadyStateEstimator.run(dispatcher, new JobMaker(100.0 / (0.8 * 10), 100, 17), 0.02,
+                    SteadyStateEstimator.defaultBatchSize(10), 20000000);
+            ExperimentSweep sweep = new ExperimentSweep(1000, 1, 1);
+            sweep.setScreening(2);
+            sweep.addConfiguration("least", 30, 3, 100);
+            sweep.addConfiguration("least", 34, 3, 100);
+            sweep.addConfiguration("random", 34, 3, 100);
+            List<ExperimentSweep.Result> results = sweep.run(1);
+
+            // verify
+            System.out.println(report.mean + " agrees with " + AnalyticEstimator.predict("round", 10, 100.0 / (0.8 * 10), 100));
+
+            // test
+            // one server: M/M/1 (with the rounded moments) whatever the dispatcher, about 1 / (1 - 0.5) = 2
+            assert Math.abs(random.meanWait - round.meanWait) < 1e-2 : "Error in AnalyticEstimator: M/G/1 and E_1/M/1 differ";
+            assert Math.abs(random.meanWait - least.meanWait) < 1e-9 : "Error in AnalyticEstimator: Erlang C with one server is not M/G/1";
+            assert Math.abs(random.meanWait - 2) < 0.02 : "Error in AnalyticEstimator: M/M/1 waiting time " + random.meanWait;
+            assert !AnalyticEstimator.predict("least", 33, 3, 100).isStable() : "Error in AnalyticEstimator::isStable()";
+            assert report.converged && AnalyticEstimator.predict("round", 10, 100.0 / (0.8 * 10), 100).agreesWith(report.mean, 0.05)
+                    : "Error in AnalyticEstimator for round robin: simulated " + report.mean;
+            assert results.get(0).isSkipped() && results.get(0).getSkipReason().equals("unstable") : "Error in ExperimentSweep::screen(): unstable farm run";
+            assert !results.get(1).isSkipped() && results.get(1).getReplications() == 1 : "Error in ExperimentSweep::screen(): best dispatcher skipped";
+            assert results.get(2).isSkipped() : "Error in ExperimentSweep::screen(): dominated dispatcher run";
+        }
+
+        // case 11: testing ProcessorSharingServer against a direct simulation that updates every job
+        {
+            // setup: the direct simulation shares each interval between the present jobs and finishes the smallest first.
+            // The times are not rounded like JobMaker's, so no two events tie and rounding cannot reorder them.
+            ProcessorSharingServer server = new ProcessorSharingServer();
+            SplitMix64 rand = new SplitMix64(19);
+            double arrivalTime = 0;
+            List<double[]> present = new java.util.ArrayList<>(); // {arrival time, remaining processing time}
+            double now = 0;
+            double expectedTotal = 0;
+            for (int n = 0; n < 5000; n++) {
+                arrivalTime -= 1.25 * Math.log(1 - rand.nextDouble());
+                Job job = new Job(arrivalTime, -Math.log(1 - rand.nextDouble()));
+                while (!present.isEmpty()) {
+                    double[] first = present.get(0);
+                    for (double[] other : present) {
+                        first = other[1] < first[1] ? other : first;
+                    }
+                    double finish = now + first[1] * present.size();
+                    double until = Math.min(finish, job.getArrivalTime());
+                    for (double[] other : present) {
+                        other[1] -= (until - now) / present.size();
+                    }
+                    now = until;
+                    if (finish > job.getArrivalTime()) {
+                        break;
+                    }
+                    expectedTotal += now - first[0];
+                    present.remove(first);
+                }
+                now = job.getArrivalTime();
+                present.add(new double[] {job.getArrivalTime(), job.getProcessingTimeNeeded()});
+                server.processTo(job.getArrivalTime());
+                server.addJob(job);
+                assert server.size() == present.size() : "Error in ProcessorSharingServer::size()";
+            }
+            server.processTo(now);
+
+            // verify
+            System.out.println(server.getTotalWaitingTime() + " == " + expectedTotal);
+
+            // test
+            assert Math.abs(server.getTotalWaitingTime() - expectedTotal) <= 1e-6 * expectedTotal : "Error in ProcessorSharingServer::processTo()";
+            double queuedWork = 0;
+            for (Job job : server.getQueuedJobs()) {
+                queuedWork += job.getProcessingTimeRemaining();
+            }
+            double expectedWork = 0;
+            for (double[] job : present) {
+                expectedWork += job[1];
+            }
+            assert Math.abs(queuedWork - expectedWork) <= 1e-6 : "Error in ProcessorSharingServer::getQueuedJobs()";
+
+            // a dispatcher with processor-sharing servers finishes every job
+            JobDispatcher dispatcher = ExperimentSweep.createDispatcher("least", 10, false, 1);
+            dispatcher.useServers(ProcessorSharingServer::new);
+            dispatcher.handleJobs(new JobMaker(100.0 / (0.9 * 10), 100, 23), 20000);
+            dispatcher.finishUp();
+            assert dispatcher.getNumJobsFinished() == 20000 : "Error in ProcessorSharingServer: " + dispatcher.getNumJobsFinished() + " jobs finished";
+        }
+
+        // case 12: testing that LindleyServer makes the same completions as Server under every kind of dispatcher
+        {
+            for (String type : new String[] {"least", "shortest", "jiq", "round"}) {
+                // setup
+                JobDispatcher fifo = ExperimentSweep.createDispatcher(type, 20, false, 1);
+                JobDispatcher lindley = ExperimentSweep.createDispatcher(type, 20, false, 1);
+                lindley.useServers(LindleyServer::new);
+                JobMaker jobMaker = new JobMaker(100.0 / (0.95 * 20), 100, 29);
+                for (int n = 0; n < 100000; n++) {
+                    Job job = jobMaker.getNextJob();
+                    fifo.handleJob(job);
+                    lindley.handleJob(job);
+                    if (n % 9973 == 0) {
+                        for (int i = 0; i < 20; i++) {
+                            Server expected = fifo.getServerList().get(i);
+                            Server actual = lindley.getServerList().get(i);
+                            assert actual.size() == expected.size() : "Error in LindleyServer::size() for " + type;
+                            assert actual.remainingWorkInQueue() == expected.remainingWorkInQueue() : "Error in LindleyServer::remainingWorkInQueue() for " + type;
+                            assert actual.nextCompletionTime() == expected.nextCompletionTime() : "Error in LindleyServer::nextCompletionTime() for " + type;
+                        }
+                    }
+                }
+                fifo.finishUp();
+                lindley.finishUp();
+
+                // verify
+                System.out.println(type + ": " + lindley.getAverageWaitingTime() + " == " + fifo.getAverageWaitingTime());
+
+                // test
+                assert lindley.getAverageWaitingTime() == fifo.getAverageWaitingTime() : "Error in LindleyServer waiting times for " + type;
+                assert lindley.getNumJobsFinished() == 100000 : "Error in LindleyServer::getNumJobsProcessed() for " + type;
+            }
+        }
+
+        // case 13: testing the online DispatchService with the local load generator
+        {
+            // setup
+            DispatchService service = new DispatchService(ExperimentSweep.createDispatcher("least", 8, false, 1), 0);
+            Thread serviceThread = new Thread(() -> {
+                try {
+                    service.run();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            serviceThread.start();
+            DispatchLoadGenerator.Report report = DispatchLoadGenerator.run(service.getPort(), 200000, 100, 64, 8);
+            service.stop();
+            try {
+                serviceThread.join();
+            } catch (InterruptedException e) {
+                throw new AssertionError("Interrupted while stopping the DispatchService", e);
+            }
+            service.close();
+
+            // verify
+            System.out.println(report.getDecisionsPerSecond() + " decisions/s");
+
+            // test
+            assert report.outstandingAtEnd == 0 : "Error in DispatchService: jobs outstanding after every completion";
+            assert service.getDecisions() == 200000 && service.getCompletions() == 200000 : "Error in DispatchService message handling";
+            long dispatched = 0;
+            for (int backend = 0; backend < 8; backend++) {
+                dispatched += report.jobsPerBackend[backend];
+                assert service.getDispatcher().getServerList().get(backend).size() == 0 : "Error in BackendServer::completeJob()";
+                // least work keeps the backends evenly loaded
+                assert report.jobsPerBackend[backend] > 200000 / 8 / 2 : "Error in DispatchService: backend " + backend + " starved";
+            }
+            assert dispatched == 200000 : "Error in DispatchLoadGenerator: " + dispatched + " jobs dispatched";
+            assert service.getDispatcher().getNumJobsFinished() == 200000 : "Error in JobDispatcher::completeJob()";
+        }
+
+        // case 14: testing that the sampled flight recorder events are recorded when enabled
+        {
+            // setup
+            Path file = Files.createTempFile("farm", ".jfr");
+            try (Recording recording = new Recording()) {
+                recording.enable("serverfarm.Dispatch");
+                recording.enable("serverfarm.Process");
+                recording.start();
+                JobDispatcher dispatcher = ExperimentSweep.createDispatcher("least", 34, false, 1);
+                dispatcher.handleJobs(new JobMaker(3, 100, 31), 10L * FarmEvents.SAMPLE_EVERY);
+                recording.stop();
+                recording.dump(file);
+            }
+            int dispatches = 0;
+            int processes = 0;
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if (event.getEventType().getName().equals("serverfarm.Dispatch")) {
+                    dispatches++;
+                    assert event.getInt("server") >= 0 && event.getInt("server") < 34 : "Error in FarmEvents.Dispatch server";
+                } else if (event.getEventType().getName().equals("serverfarm.Process")) {
+                    processes++;
+                }
+            }
+            Files.delete(file);
+
+            // verify
+            System.out.println(dispatches + " == 10 dispatch events, " + processes + " process events");
+
+            // test
+            assert dispatches == 10 : "Error in FarmEvents.Dispatch sampling";
+            assert processes >= 10 : "Error in FarmEvents.Process sampling";
+        }
+
+        // case 15: testing the statistics a dispatcher publishes over JMX
+        {
+            // setup
+            MBeanServer mbeans = ManagementFactory.getPlatformMBeanServer();
+            JobDispatcher dispatcher = ExperimentSweep.createDispatcher("shortest", 10, false, 1);
+            DispatcherStats stats = dispatcher.registerStatistics("test", 1000);
+            dispatcher.handleJobs(new JobMaker(100.0 / (0.8 * 10), 100, 37), 20500);
+            long handledMidRun = (Long) mbeans.getAttribute(stats.getObjectName(), "JobsHandled");
+            dispatcher.finishUp();
+            int[] queueLengths = (int[]) mbeans.getAttribute(stats.getObjectName(), "QueueLengths");
+            double averageWait = (Double) mbeans.getAttribute(stats.getObjectName(), "AverageWaitingTime");
+            dispatcher.unregisterStatistics();
+
+            // verify
+            System.out.println(handledMidRun + " == 20000, " + averageWait + " == " + dispatcher.getAverageWaitingTime());
+
+            // test
+            assert handledMidRun == 20000 : "Error in DispatcherStats publication interval";
+            assert queueLengths.length == 10 && queueLengths[3] == 0 : "Error in DispatcherStats::getQueueLengths()";
+            assert averageWait == dispatcher.getAverageWaitingTime() : "Error in DispatcherStats::getAverageWaitingTime()";
+            assert !mbeans.isRegistered(stats.getObjectName()) : "Error in JobDispatcher::unregisterStatistics()";
+            assert stats.getJobsHandled() == 20500 : "Error in DispatcherStats final snapshot";
+        }
+
+        // case 16: testing fixed DLB weights and the adaptive controller
+        {
+            // setup
+            JobDispatcher[] dispatchers = {new DLBDispatcher(10, false, 1, 0), new ShortestQueueDispatcher(10, false),
+                    new DLBDispatcher(10, false, 0, 1), new LeastWorkDispatcher(10, false)};
+            for (JobDispatcher dispatcher : dispatchers) {
+                dispatcher.handleJobs(new JobMaker(100.0 / (0.9 * 10), 100, 41), 50000);
+                dispatcher.finishUp();
+            }
+            AdaptiveDLBDispatcher adaptive = new AdaptiveDLBDispatcher(10, false);
+            adaptive.handleJobs(new JobMaker(100.0 / (0.9 * 10), 100, 41), 400000);
+            // Asking for a server without dispatching must not feed the controller
+            AdaptiveDLBDispatcher queried = new AdaptiveDLBDispatcher(10, false);
+            JobMaker queriedJobs = new JobMaker(100.0 / (0.9 * 10), 100, 41);
+            for (int n = 0; n < 400000; n++) {
+                Job job = queriedJobs.getNextJob();
+                queried.pickServer(job);
+                queried.pickServer(job);
+                queried.handleJob(job);
+            }
+
+            // verify
+            System.out.println("learned u = " + adaptive.getQueueLengthShare() + " after " + adaptive.getIterations() + " == 12 steps");
+
+            // test
+            assert dispatchers[0].getAverageWaitingTime() == dispatchers[1].getAverageWaitingTime() : "Error in DLBDispatcher queue length weight";
+            assert dispatchers[2].getAverageWaitingTime() == dispatchers[3].getAverageWaitingTime() : "Error in DLBDispatcher remaining work weight";
+            assert adaptive.getIterations() == 12 : "Error in AdaptiveDLBDispatcher epochs";
+            assert queried.getQueueLengthShare() == adaptive.getQueueLengthShare() : "Error in AdaptiveDLBDispatcher::pickServer() side effects";
+            assert adaptive.getQueueLengthShare() >= 0 && adaptive.getQueueLengthShare() <= 1 : "Error in AdaptiveDLBDispatcher step";
+            assert Math.abs(adaptive.getQueueLengthWeight() + adaptive.getRemainingWorkWeight() - 1) < 1e-12 : "Error in DLBDispatcher weights";
+        }
+
+        // case 17: testing that SITA sends every job to the least loaded server of its size band
+        {
+            // setup
+            SITADispatcher dispatcher = new SITADispatcher(6, false, 3, 4096);
+            JobMaker jobMaker = new JobMaker(100.0 / (0.9 * 6), 100, 43);
+            dispatcher.handleJobs(jobMaker, 20000);
+            SITADispatcher unqueried = new SITADispatcher(6, false, 3, 4096);
+            JobMaker unqueriedJobs = new JobMaker(100.0 / (0.9 * 6), 100, 43);
+            unqueried.handleJobs(unqueriedJobs, 40000);
+            double[] cutoffs = dispatcher.getCutoffs();
+            int misrouted = 0;
+            for (int n = 0; n < 20000; n++) {
+                Job job = jobMaker.getNextJob();
+                int band = job.getProcessingTimeNeeded() <= cutoffs[0] ? 0 : job.getProcessingTimeNeeded() <= cutoffs[1] ? 1 : 2;
+                int expected = dispatcher.getBandStart(band);
+                for (int i = expected + 1; i < dispatcher.getBandStart(band + 1); i++) {
+                    if (dispatcher.getRemainingWork(i) < dispatcher.getRemainingWork(expected)) {
+                        expected = i;
+                    }
+                }
+                if (dispatcher.pickServer(job).getServerIndex() != expected) {
+                    misrouted++;
+                }
+                dispatcher.handleJob(job);
+                cutoffs = dispatcher.getCutoffs();
+            }
+
+            // verify
+            System.out.println("sita cutoffs " + cutoffs[0] + ", " + cutoffs[1] + ": " + misrouted + " == 0 misrouted");
+
+            // test
+            assert misrouted == 0 : "Error in SITADispatcher::pickServer()";
+            // Asking for a server without dispatching must not count towards the cutoffs
+            assert cutoffs[0] == unqueried.getCutoffs()[0] && cutoffs[1] == unqueried.getCutoffs()[1] : "Error in SITADispatcher::pickServer() side effects";
+            // A third of the work of exponential sizes with mean 100 comes from jobs below 119, two thirds below 229
+            assert Math.abs(cutoffs[0] - 119) < 8 && Math.abs(cutoffs[1] - 229) < 12 : "Error in SITADispatcher cutoffs";
+        }
+
+        // case 18: testing that restoring into fewer servers keeps the outstanding work
+        {
+            // setup
+            JobDispatcher original = ExperimentSweep.createDispatcher("least", 4, false, 1);
+            original.handleJobs(new JobMaker(100.0 / (0.9 * 4), 100, 47), 1000);
+            Path file = Files.createTempFile("simulation", ".checkpoint");
+            SimulationCheckpoint.capture(original, null).save(file);
+            JobDispatcher restored = SimulationCheckpoint.load(file).restoreDispatcher("least", 2, 1);
+            Files.delete(file);
+            double originalWork = outstandingWork(original);
+            double restoredWork = outstandingWork(restored);
+
+            // verify
+            System.out.println(restoredWork + " == " + originalWork);
+
+            // test
+            assert restored.getTime() == original.getTime() : "Error in JobDispatcher::readFrom() clock";
+            assert Math.abs(restoredWork - originalWork) < 1e-9 * originalWork : "Error in JobDispatcher::readFrom() re-dispatch";
+        }
+
+        System.out.println("Done testing dispatchers!");
+    }
+}
@@ -0,0 +1,123 @@
+/*
+  Author: Vishnu Varadhan
+
+  Date: 10/18/2026
+
+  Name: DoubleArrayQueue.java
+
+  Purpose: A version of ArrayQueue specialized for primitive doubles, so queues of times can be stored
+               without boxing each value into a Double. It has the same offer, peek and poll operations as
+               the Queue interface, plus get and set by index, which the JobStore uses for its columns.
+               Since a double cannot be null, peek returns NaN when the queue is empty.
+*/
+
+
+
+import java.util.NoSuchElementException;
+
+
+public class DoubleArrayQueue {
+    private double[] values;
+    private int head; // index of the value at the front of the queue
+    private int size;
+    private int mask; // values.length - 1; the length is always a power of two
+
+    public DoubleArrayQueue() {
+        this(16);
+    }
+
+    public DoubleArrayQueue(int initialCapacity) {
+        values = new double[Integer.highestOneBit(Math.max(initialCapacity, 2) - 1) << 1];
+        mask = values.length - 1;
+        head = 0;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    //adds value to the back of the queue
+    public void offer(double value) {
+        if (size == values.length) {
+            grow();
+        }
+        values[(head + size) & mask] = value;
+        size++;
+    }
+
+    public double peek() {
+        return size == 0 ? Double.NaN : values[head];
+    }
+
+    public double poll() {
+        if (size == 0) {
+            throw new NoSuchElementException("Cannot remove from an empty queue.");
+        }
+        double value = values[head];
+        head = (head + 1) & mask;
+        size--;
+        return value;
+    }
+
+    public double peekLast() {
+        return size == 0 ? Double.NaN : values[(head + size - 1) & mask];
+    }
+
+    public double removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException("Cannot remove from an empty queue.");
+        }
+        size--;
+        return values[(head + size) & mask];
+    }
+
+    //index 0 is the front of the queue
+    public double get(int index) {
+        return values[slot(index)];
+    }
+
+    public void set(int index, double value) {
+        values[slot(index)] = value;
+    }
+
+    public String toString() {
+        StringBuilder queue = new StringBuilder();
+        queue.append("{");
+        for (int i = 0; i < size; i++) {
+            queue.append(get(i));
+            if (i < size - 1) {
+                queue.append(", ");
+            }
+        }
+        queue.append("}");
+        return queue.toString();
+    }
+
+    private int slot(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return (head + index) & mask;
+    }
+
+    //doubles the array, moving the front of the queue back to index 0
+    private void grow() {
+        double[] grown = new double[values.length * 2];
+        int firstPart = values.length - head;
+        System.arraycopy(values, head, grown, 0, firstPart);
+        System.arraycopy(values, 0, grown, firstPart, head);
+        values = grown;
+        mask = values.length - 1;
+        head = 0;
+    }
+}
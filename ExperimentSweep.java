@@ -0,0 +1,540 @@
+/*
+  file name:      ExperimentSweep.java
+  Authors:        Vishnu Varadhan
+  last modified:  10/18/2026
+  Class Purpose:  Runs a grid of simulation experiments -- dispatcher type, number of servers, mean arrival and
+                  processing times -- for several independent replications each, in parallel on a fork-join pool.
+                  Within a replication, all configurations with the same means replay one shared JobTrace (common
+                  random numbers), so differences between dispatchers are not masked by workload noise and each
+                  trace is generated only once. Every random stream is split off a single base seed in a fixed
+                  order before any work is forked, so the results table is the same no matter how many threads run
+                  it. The table reports the mean average waiting time of each configuration, its spread across
+                  replications, and tail percentiles of the waiting times pooled over all replications.
+                  Next to each result it prints the closed-form prediction of AnalyticEstimator and flags results that
+                  disagree with it. With screening on, configurations the theory says are unstable, or clearly worse
+                  than another dispatcher on the same farm, are not simulated at all.
+*/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class ExperimentSweep {
+
+    // One point of the experiment grid.
+    public static class Configuration {
+        public final String dispatcherType;
+        public final int numServers;
+        public final double meanArrivalTime;
+        public final double meanProcessingTime;
+
+        public Configuration(String dispatcherType, int numServers, double meanArrivalTime, double meanProcessingTime) {
+            this.dispatcherType = dispatcherType;
+            this.numServers = numServers;
+            this.meanArrivalTime = meanArrivalTime;
+            this.meanProcessingTime = meanProcessingTime;
+        }
+
+        public String toString() {
+            return dispatcherType + ", " + numServers + " servers, arrival " + meanArrivalTime + ", processing " + meanProcessingTime;
+        }
+    }
+
+    // The average waiting time of every replication of one configuration, and the waiting times of all of them.
+    public static class Result {
+        public final Configuration configuration;
+        private final double[] averageWaitingTimes;
+        private final LatencyHistogram waitingTimes;
+        private final SteadyStateEstimator.Report[] reports; // null unless the runs used the stopping rule
+        private String skipReason; // null unless screening left the configuration out
+
+        public Result(Configuration configuration, double[] averageWaitingTimes, LatencyHistogram waitingTimes) {
+            this(configuration, averageWaitingTimes, waitingTimes, null);
+        }
+
+        public Result(Configuration configuration, double[] averageWaitingTimes, LatencyHistogram waitingTimes,
+                      SteadyStateEstimator.Report[] reports) {
+            this.configuration = configuration;
+            this.averageWaitingTimes = averageWaitingTimes;
+            this.waitingTimes = waitingTimes;
+            this.reports = reports;
+        }
+
+        // Returns the result of a configuration that was screened out: no waiting times, and the reason it was skipped.
+        static Result skipped(Configuration configuration, int replications, String reason) {
+            double[] waits = new double[replications];
+            Arrays.fill(waits, Double.NaN);
+            Result result = new Result(configuration, waits, new LatencyHistogram());
+            result.skipReason = reason;
+            return result;
+        }
+
+        // Returns true if screening left the configuration out, so it was never simulated.
+        public boolean isSkipped() {
+            return skipReason != null;
+        }
+
+        // Returns why screening left the configuration out, or null if it was simulated.
+        public String getSkipReason() {
+            return skipReason;
+        }
+
+        // Returns the closed-form prediction for the configuration.
+        public AnalyticEstimator.Prediction getPrediction() {
+            return AnalyticEstimator.predict(configuration.dispatcherType, configuration.numServers,
+                    configuration.meanArrivalTime, configuration.meanProcessingTime);
+        }
+
+        // Returns true if the simulated mean waiting time is consistent with the prediction, within the given fraction.
+        // Skipped configurations have nothing to compare and always agree.
+        public boolean agreesWithPrediction(double relativeTolerance) {
+            return isSkipped() || getPrediction().agreesWith(mean(), relativeTolerance);
+        }
+
+        // Returns the stopping-rule report of one replication: its confidence interval, discarded warm-up and length.
+        // Returns null if the sweep ran a fixed number of jobs.
+        public SteadyStateEstimator.Report getReport(int replication) {
+            return reports == null ? null : reports[replication];
+        }
+
+        // Returns the distribution of waiting times pooled over every replication, empty for stopping-rule runs.
+        public LatencyHistogram getWaitingTimeHistogram() {
+            return waitingTimes;
+        }
+
+        // Returns the number of replications.
+        public int getReplications() {
+            return averageWaitingTimes.length;
+        }
+
+        // Returns the average waiting time of one replication.
+        public double getAverageWaitingTime(int replication) {
+            return averageWaitingTimes[replication];
+        }
+
+        // Returns the mean of the replications' average waiting times.
+        public double mean() {
+            double sum = 0;
+            for (double wait : averageWaitingTimes) {
+                sum += wait;
+            }
+            return sum / averageWaitingTimes.length;
+        }
+
+        // Returns the sample standard deviation of the replications' average waiting times, or 0 for a single replication.
+        public double standardDeviation() {
+            int n = averageWaitingTimes.length;
+            if (n < 2) {
+                return 0;
+            }
+            double mean = mean();
+            double sumSquares = 0;
+            for (double wait : averageWaitingTimes) {
+                sumSquares += (wait - mean) * (wait - mean);
+            }
+            return Math.sqrt(sumSquares / (n - 1));
+        }
+
+        // Returns the standard error of the mean across replications.
+        public double standardError() {
+            return standardDeviation() / Math.sqrt(averageWaitingTimes.length);
+        }
+    }
+
+    private static final double AGREEMENT_TOLERANCE = 0.1; // relative difference from the prediction that printResults flags
+
+    private final List<Configuration> configurations;
+    private final int numJobs;
+    private final int replications;
+    private final long baseSeed;
+    private double relativeHalfWidth; // target precision of the stopping rule, or 0 to run exactly numJobs jobs
+    private double screeningMargin;   // how much worse a dispatcher must be predicted to be before it is skipped, or 0 to run everything
+    private int monitoringInterval;   // jobs between the JMX statistics snapshots of each run, or 0 to register no MBeans
+
+    // Constructor: Creates an empty sweep in which every configuration runs numJobs jobs, replications times.
+    public ExperimentSweep(int numJobs, int replications, long baseSeed) {
+        if (numJobs <= 0 || replications <= 0) {
+            throw new IllegalArgumentException("numJobs and replications must be positive");
+        }
+        this.configurations = new ArrayList<>();
+        this.numJobs = numJobs;
+        this.replications = replications;
+        this.baseSeed = baseSeed;
+    }
+
+    // Stops each run as soon as its steady-state mean waiting time is known to within the given fraction, with the
+    // warm-up discarded (see SteadyStateEstimator); numJobs becomes the most a run may use. Runs stream their jobs
+    // from the same seeds the traces would be generated from, so they still see common random numbers.
+    // The servers' waiting-time histograms cannot drop a warm-up that is only found afterwards, so the results of
+    // such runs have an empty histogram and their percentiles and maximum are NaN rather than describing a different
+    // set of jobs than the mean. A target of 0 turns the rule off again.
+    public void setStoppingRule(double relativeHalfWidth) {
+        if (relativeHalfWidth < 0) {
+            throw new IllegalArgumentException("The target half-width cannot be negative: " + relativeHalfWidth);
+        }
+        this.relativeHalfWidth = relativeHalfWidth;
+    }
+
+    // Skips configurations without simulating them when the closed-form predictions show they are not worth it: farms
+    // that are unstable, and dispatchers whose predicted lower bound is more than margin times the predicted upper
+    // bound of another dispatcher on the same number of servers and means. A margin of 0 turns screening off again.
+    public void setScreening(double margin) {
+        if (margin != 0 && margin < 1) {
+            throw new IllegalArgumentException("The screening margin must be 0 or at least 1: " + margin);
+        }
+        this.screeningMargin = margin;
+    }
+
+    // Registers a DispatcherStats MBean for every run while it is in progress, named after its dispatcher, number of
+    // servers and replication, and publishes its statistics every publishEvery jobs. 0 turns monitoring off again.
+    public void setMonitoring(int publishEvery) {
+        if (publishEvery < 0) {
+            throw new IllegalArgumentException("The monitoring interval cannot be negative: " + publishEvery);
+        }
+        this.monitoringInterval = publishEvery;
+    }
+
+    // Returns why screening leaves each configuration out, or null for the ones that will be simulated.
+    public String[] screen() {
+        int numConfigs = configurations.size();
+        String[] reasons = new String[numConfigs];
+        if (screeningMargin == 0) {
+            return reasons;
+        }
+        AnalyticEstimator.Prediction[] predictions = new AnalyticEstimator.Prediction[numConfigs];
+        for (int c = 0; c < numConfigs; c++) {
+            Configuration config = configurations.get(c);
+            predictions[c] = AnalyticEstimator.predict(config.dispatcherType, config.numServers, config.meanArrivalTime, config.meanProcessingTime);
+        }
+        for (int c = 0; c < numConfigs; c++) {
+            Configuration config = configurations.get(c);
+            if (!predictions[c].isStable()) {
+                reasons[c] = "unstable";
+                continue;
+            }
+            for (int other = 0; other < numConfigs; other++) {
+                Configuration rival = configurations.get(other);
+                if (rival.numServers == config.numServers && rival.meanArrivalTime == config.meanArrivalTime
+                        && rival.meanProcessingTime == config.meanProcessingTime
+                        && predictions[c].lowerBound > screeningMargin * predictions[other].upperBound) {
+                    reasons[c] = "dominated by " + rival.dispatcherType;
+                    break;
+                }
+            }
+        }
+        return reasons;
+    }
+
+    // Adds one configuration to the grid.
+    public void addConfiguration(String dispatcherType, int numServers, double meanArrivalTime, double meanProcessingTime) {
+        configurations.add(new Configuration(dispatcherType, numServers, meanArrivalTime, meanProcessingTime));
+    }
+
+    // Adds every combination of the given dispatcher types and server counts from minServers to maxServers.
+    public void addGrid(String[] dispatcherTypes, int minServers, int maxServers, double meanArrivalTime, double meanProcessingTime) {
+        for (String dispatcherType : dispatcherTypes) {
+            for (int numServers = minServers; numServers <= maxServers; numServers++) {
+                addConfiguration(dispatcherType, numServers, meanArrivalTime, meanProcessingTime);
+            }
+        }
+    }
+
+    // Returns the configurations in the order they were added.
+    public List<Configuration> getConfigurations() {
+        return configurations;
+    }
+
+    // Runs the sweep on all available processors.
+    public List<Result> run() {
+        return run(Runtime.getRuntime().availableProcessors());
+    }
+
+    // Runs the sweep with the given number of worker threads and returns one result per configuration, in order.
+    public List<Result> run(int parallelism) {
+        int numConfigs = configurations.size();
+        int numRuns = numConfigs * replications;
+        String[] skipReasons = screen();
+
+        // Configurations with the same means share a job trace within each replication; skipped ones take no part
+        Map<String, Integer> groupOfMeans = new HashMap<>();
+        int[] groups = new int[numConfigs];
+        List<Integer> groupSizes = new ArrayList<>();
+        for (int c = 0; c < numConfigs; c++) {
+            Configuration config = configurations.get(c);
+            String means = config.meanArrivalTime + "/" + config.meanProcessingTime;
+            Integer group = groupOfMeans.get(means);
+            if (group == null) {
+                group = groupSizes.size();
+                groupOfMeans.put(means, group);
+                groupSizes.add(0);
+            }
+            groups[c] = group;
+            if (skipReasons[c] == null) {
+                groupSizes.set(group, groupSizes.get(group) + 1);
+            }
+        }
+
+        // Runs are numbered replication-major, so runs that are in flight together mostly share the same traces.
+        // Seeds are drawn for skipped runs too, so screening does not change the results of the others.
+        SharedTrace[] traces = new SharedTrace[numRuns];
+        long[] dispatcherSeeds = new long[numRuns];
+        SplitMix64 root = new SplitMix64(baseSeed);
+        for (int r = 0; r < replications; r++) {
+            SplitMix64 stream = root.split();
+            SharedTrace[] replicationTraces = new SharedTrace[groupSizes.size()];
+            for (int c = 0; c < numConfigs; c++) {
+                int group = groups[c];
+                if (replicationTraces[group] == null) {
+                    Configuration config = configurations.get(c);
+                    replicationTraces[group] = new SharedTrace(config.meanArrivalTime, config.meanProcessingTime,
+                            stream.nextLong(), groupSizes.get(group));
+                }
+            }
+            for (int c = 0; c < numConfigs; c++) {
+                traces[r * numConfigs + c] = skipReasons[c] == null ? replicationTraces[groups[c]] : null;
+                dispatcherSeeds[r * numConfigs + c] = stream.nextLong();
+            }
+        }
+
+        double[] waits = new double[numRuns];
+        LatencyHistogram[] histograms = new LatencyHistogram[numRuns];
+        SteadyStateEstimator.Report[] reports = relativeHalfWidth > 0 ? new SteadyStateEstimator.Report[numRuns] : null;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new SweepTask(0, numRuns, traces, dispatcherSeeds, waits, histograms, reports));
+        } finally {
+            pool.shutdown();
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (int c = 0; c < numConfigs; c++) {
+            if (skipReasons[c] != null) {
+                results.add(Result.skipped(configurations.get(c), replications, skipReasons[c]));
+                continue;
+            }
+            double[] replicationWaits = new double[replications];
+            LatencyHistogram pooled = new LatencyHistogram();
+            SteadyStateEstimator.Report[] replicationReports = reports == null ? null : new SteadyStateEstimator.Report[replications];
+            for (int r = 0; r < replications; r++) {
+                replicationWaits[r] = waits[r * numConfigs + c];
+                pooled.merge(histograms[r * numConfigs + c]);
+                if (reports != null) {
+                    replicationReports[r] = reports[r * numConfigs + c];
+                }
+            }
+            results.add(new Result(configurations.get(c), replicationWaits, pooled, replicationReports));
+        }
+        return results;
+    }
+
+    // A job trace used by several runs. It is generated by the first run that needs it and dropped after the last one.
+    private class SharedTrace {
+        private final double meanArrivalTime;
+        private final double meanProcessingTime;
+        private final long seed;
+        private int usesLeft;
+        private JobTrace trace;
+
+        SharedTrace(double meanArrivalTime, double meanProcessingTime, long seed, int uses) {
+            this.meanArrivalTime = meanArrivalTime;
+            this.meanProcessingTime = meanProcessingTime;
+            this.seed = seed;
+            this.usesLeft = uses;
+        }
+
+        synchronized JobTrace acquire() {
+            if (trace == null) {
+                trace = JobTrace.generate(newJobMaker(), numJobs);
+            }
+            return trace;
+        }
+
+        // A job maker that produces the jobs of the trace, and more
+        JobMaker newJobMaker() {
+            return new JobMaker(meanArrivalTime, meanProcessingTime, seed);
+        }
+
+        synchronized void release() {
+            usesLeft--;
+            if (usesLeft == 0) {
+                trace = null;
+            }
+        }
+    }
+
+    // Runs a range of the sweep, splitting it in half until a single run is left. Skipped runs have no trace.
+    private class SweepTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final SharedTrace[] traces;
+        private final long[] dispatcherSeeds;
+        private final double[] waits;
+        private final LatencyHistogram[] histograms;
+        private final SteadyStateEstimator.Report[] reports;
+
+        SweepTask(int from, int to, SharedTrace[] traces, long[] dispatcherSeeds, double[] waits, LatencyHistogram[] histograms,
+                  SteadyStateEstimator.Report[] reports) {
+            this.from = from;
+            this.to = to;
+            this.traces = traces;
+            this.dispatcherSeeds = dispatcherSeeds;
+            this.waits = waits;
+            this.histograms = histograms;
+            this.reports = reports;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                if (traces[from] == null) {
+                    return;
+                }
+                Configuration config = configurations.get(from % configurations.size());
+                JobDispatcher dispatcher = createDispatcher(config.dispatcherType, config.numServers, false, dispatcherSeeds[from]);
+                if (monitoringInterval > 0) {
+                    dispatcher.registerStatistics(config.dispatcherType + " k=" + config.numServers
+                            + " replication=" + (from / configurations.size()), monitoringInterval);
+                }
+                try {
+                    simulate(config, dispatcher);
+                } finally {
+                    dispatcher.unregisterStatistics();
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SweepTask(from, mid, traces, dispatcherSeeds, waits, histograms, reports),
+                      new SweepTask(mid, to, traces, dispatcherSeeds, waits, histograms, reports));
+        }
+
+        private void simulate(Configuration config, JobDispatcher dispatcher) {
+            SharedTrace sharedTrace = traces[from];
+            if (reports != null) {
+                // Stream the jobs, since the run's length is not known in advance
+                reports[from] = SteadyStateEstimator.run(dispatcher, sharedTrace.newJobMaker(), relativeHalfWidth,
+                        SteadyStateEstimator.defaultBatchSize(config.numServers), numJobs);
+                waits[from] = reports[from].mean;
+                // The servers' histograms still hold the warm-up the mean leaves out, so the run reports no percentiles
+                histograms[from] = new LatencyHistogram();
+                return;
+            }
+            try {
+                sharedTrace.acquire().replay(dispatcher);
+            } finally {
+                sharedTrace.release();
+            }
+            dispatcher.finishUp();
+            waits[from] = dispatcher.getAverageWaitingTime();
+            histograms[from] = dispatcher.getWaitingTimeHistogram();
+        }
+    }
+
+    // Creates a dispatcher of a specific type. Dispatchers that make random choices are seeded with the given seed.
+    public static JobDispatcher createDispatcher(String type, int numServers, boolean showViz, long seed) {
+        switch (type) {
+            case "random":
+                return new RandomDispatcher(numServers, showViz, seed);
+            case "round":
+                return new RoundRobinDispatcher(numServers, showViz);
+            case "shortest":
+                return new ShortestQueueDispatcher(numServers, showViz);
+            case "least":
+                return new LeastWorkDispatcher(numServers, showViz);
+            case "timeSensitive":
+                return new TimeSensitiveDispatcher(numServers, showViz, seed);
+            case "dlb":
+                return new DLBDispatcher(numServers, showViz);
+            case "dlbAdaptive":
+                return new AdaptiveDLBDispatcher(numServers, showViz);
+            case "powerOfTwo":
+                return new PowerOfDChoicesDispatcher(numServers, showViz, 2, false, seed);
+            case "powerOfTwoLeast":
+                return new PowerOfDChoicesDispatcher(numServers, showViz, 2, true, seed);
+            case "jiq":
+                return new JoinIdleQueueDispatcher(numServers, showViz, seed);
+            case "sita":
+                return new SITADispatcher(numServers, showViz);
+            default:
+                throw new IllegalArgumentException("Unknown dispatcher type: " + type);
+        }
+    }
+
+    // Prints one row per configuration with the mean, standard deviation and standard error across replications,
+    // followed by the pooled 99th and 99.9th percentile and maximum waiting times, the predicted mean waiting time and
+    // whether the simulation agrees with it. Runs that used the stopping rule also report the mean confidence
+    // half-width, warm-up discarded and jobs simulated per replication, and NaN percentiles (see setStoppingRule).
+    // Skipped configurations only show the reason.
+    public static void printResults(List<Result> results) {
+        boolean stopped = false;
+        for (Result result : results) {
+            stopped |= result.getReport(0) != null;
+        }
+        System.out.println("Dispatcher Type\tServers\tMean Arrival\tMean Processing\tReplications\tMean Wait\tStd. Dev.\tStd. Error\tp99\tp99.9\tMax"
+                + "\tPredicted Wait\tAgreement" + (stopped ? "\tCI Half-Width\tWarm-up Jobs\tJobs Simulated\tConverged" : ""));
+        for (Result result : results) {
+            Configuration config = result.configuration;
+            if (result.isSkipped()) {
+                System.out.println(config.dispatcherType + "\t" + config.numServers + "\t" + config.meanArrivalTime + "\t" + config.meanProcessingTime
+                        + "\t0\t\t\t\t\t\t\t" + predictedWait(result.getPrediction()) + "\tskipped: " + result.getSkipReason());
+                continue;
+            }
+            LatencyHistogram waitingTimes = result.getWaitingTimeHistogram();
+            String row = config.dispatcherType + "\t" + config.numServers + "\t" + config.meanArrivalTime + "\t" + config.meanProcessingTime
+                    + "\t" + result.getReplications() + "\t" + result.mean() + "\t" + result.standardDeviation() + "\t" + result.standardError()
+                    + "\t" + waitingTimes.getValueAtPercentile(99) + "\t" + waitingTimes.getValueAtPercentile(99.9) + "\t" + waitingTimes.getMax()
+                    + "\t" + predictedWait(result.getPrediction()) + "\t" + (result.agreesWithPrediction(AGREEMENT_TOLERANCE) ? "agrees" : "DISAGREES");
+            if (stopped) {
+                double halfWidth = 0;
+                double truncated = 0;
+                double simulated = 0;
+                int converged = 0;
+                for (int r = 0; r < result.getReplications(); r++) {
+                    SteadyStateEstimator.Report report = result.getReport(r);
+                    halfWidth += report.halfWidth / result.getReplications();
+                    truncated += (double) report.truncatedJobs / result.getReplications();
+                    simulated += (double) report.jobsSimulated / result.getReplications();
+                    converged += report.converged ? 1 : 0;
+                }
+                row += "\t" + halfWidth + "\t" + truncated + "\t" + simulated + "\t" + converged + "/" + result.getReplications();
+            }
+            System.out.println(row);
+        }
+    }
+
+    // The predicted waiting time column: the estimate, or the range when only bounds are known.
+    private static String predictedWait(AnalyticEstimator.Prediction prediction) {
+        if (prediction.isStable() && prediction.kind == AnalyticEstimator.Kind.BOUNDS) {
+            return prediction.lowerBound + " to " + prediction.upperBound;
+        }
+        return String.valueOf(prediction.meanWait);
+    }
+
+    // Entry point: runs every dispatcher from the extension for 30 to 40 servers, with several replications each.
+    // Optional arguments: number of jobs, replications, base seed, number of threads, and a target relative
+    // confidence half-width that turns on the stopping rule, with the number of jobs as the most a run may use, and a
+    // screening margin that skips unstable and clearly dominated configurations. Setting the system property
+    // serverfarm.jmx.publishEvery registers an MBean per run that JConsole can watch (see DispatcherStats).
+    public static void main(String[] args) {
+        int numJobs = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int replications = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        long baseSeed = args.length > 2 ? Long.parseLong(args[2]) : 2024;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        ExperimentSweep sweep = new ExperimentSweep(numJobs, replications, baseSeed);
+        if (args.length > 4) {
+            sweep.setStoppingRule(Double.parseDouble(args[4]));
+        }
+        if (args.length > 5) {
+            sweep.setScreening(Double.parseDouble(args[5]));
+        }
+        sweep.setMonitoring(Integer.getInteger("serverfarm.jmx.publishEvery", 0));
+        sweep.addGrid(new String[] {"random", "round", "shortest", "least", "timeSensitive", "dlb", "powerOfTwo", "powerOfTwoLeast", "jiq"}, 30, 40, 3, 100);
+        printResults(sweep.run(threads));
+    }
+}
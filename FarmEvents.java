@@ -0,0 +1,89 @@
+/*
+  file name:      FarmEvents.java
+  Authors:        Vishnu Varadhan
+  last modified:  10/18/2026
+  Class Purpose:  Java Flight Recorder events for the simulator, to see what a slow sweep or an odd dispatcher is
+                  doing. A Dispatch event covers one dispatch decision: its duration is the time pickServer took,
+                  and it records the server chosen and the load the policy saw there. A Process event covers one
+                  processTo call that a dispatcher makes on a server: the loop passes it took, the jobs it finished
+                  and how far it moved the server's clock. Calls made by the shard workers of a sharded farm are not
+                  recorded.
+
+                  Both events are disabled by default. When they are off, a dispatcher only counts down to its next
+                  sample, so a run pays one decrement per decision and per processTo call. When on, only every
+                  SAMPLE_EVERY-th decision and call is timed (1000 unless the serverfarm.jfr.sampleEvery system
+                  property says otherwise), and the usual JFR threshold setting drops the sampled events that were
+                  faster than it, so a 10M-job run makes a recording of a few thousand events. For example:
+
+                      java -Dserverfarm.jfr.sampleEvery=100 -XX:StartFlightRecording:filename=farm.jfr,settings=serverfarm.jfc ServerFarmSimulationExploration
+
+                  where serverfarm.jfc enables both events with a threshold of 0 ms (edit it to keep only slow ones).
+*/
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+public class FarmEvents {
+    // Record one in this many decisions and processTo calls
+    public static final int SAMPLE_EVERY = Math.max(1, Integer.getInteger("serverfarm.jfr.sampleEvery", 1000));
+
+    // One dispatch decision. The event's duration is the time spent in pickServer.
+    @Name("serverfarm.Dispatch")
+    @Label("Dispatch Decision")
+    @Category({"Server Farm"})
+    @Description("A sampled dispatch decision: the server chosen and the load the policy saw there")
+    @Enabled(false)
+    @Threshold("0 ms")
+    @StackTrace(false)
+    public static class Dispatch extends Event {
+        @Label("Dispatcher")
+        public String dispatcher;
+
+        @Label("Server")
+        public int server;
+
+        @Label("Queue Length")
+        @Description("Jobs at the chosen server when it was picked")
+        public int queueLength;
+
+        @Label("Remaining Work")
+        @Description("Remaining work at the chosen server when it was picked")
+        public double remainingWork;
+
+        @Label("Simulated Time")
+        public double simulatedTime;
+
+        @Label("Jobs Handled")
+        public long jobsHandled;
+    }
+
+    // One processTo call on a server.
+    @Name("serverfarm.Process")
+    @Label("Server Processing")
+    @Category({"Server Farm"})
+    @Description("A sampled processTo call a dispatcher made on one of its servers")
+    @Enabled(false)
+    @Threshold("0 ms")
+    @StackTrace(false)
+    public static class Process extends Event {
+        @Label("Server")
+        public int server;
+
+        @Label("Iterations")
+        @Description("Passes through the server's processing loop")
+        public long iterations;
+
+        @Label("Jobs Completed")
+        public int jobsCompleted;
+
+        @Label("Time Advanced")
+        @Description("Simulated time the server's clock moved forward")
+        public double timeAdvanced;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+file name:      FarmSnapshot.java
+Authors:        Vishnu Varadhan
+last modified:  10/18/2026
+Class Purpose:  Immutable picture of a server farm at one moment: the simulation time, the number of jobs handled,
+                and the remaining work and queue length of every server. The simulation thread publishes
+                snapshots and the visualization paints them on its own thread, so drawing never reads the live
+                servers while the simulation is changing them.
+*/
+
+import java.awt.Color;
+import java.awt.Graphics;
+
+public class FarmSnapshot {
+    private final double time;
+    private final int numJobsHandled;
+    private final double[] remainingWork;
+    private final int[] queueLengths;
+
+    // Constructor: Wraps the state of a farm. The arrays must not be modified afterwards.
+    public FarmSnapshot(double time, int numJobsHandled, double[] remainingWork, int[] queueLengths) {
+        if (remainingWork.length != queueLengths.length) {
+            throw new IllegalArgumentException("Remaining work and queue length arrays differ in length: "
+                    + remainingWork.length + " != " + queueLengths.length);
+        }
+        this.time = time;
+        this.numJobsHandled = numJobsHandled;
+        this.remainingWork = remainingWork;
+        this.queueLengths = queueLengths;
+    }
+
+    // Takes a snapshot of a dispatcher's servers. Must be called on the thread that runs the simulation.
+    public static FarmSnapshot of(JobDispatcher dispatcher) {
+        int k = dispatcher.getServerList().size();
+        double[] remainingWork = new double[k];
+        int[] queueLengths = new int[k];
+        for (int i = 0; i < k; i++) {
+            remainingWork[i] = dispatcher.getRemainingWork(i);
+            queueLengths[i] = dispatcher.getQueueLength(i);
+        }
+        return new FarmSnapshot(dispatcher.getTime(), dispatcher.getNumJobsHandled(), remainingWork, queueLengths);
+    }
+
+    // Returns the simulation time of the snapshot.
+    public double getTime() {
+        return time;
+    }
+
+    // Returns the number of jobs handled when the snapshot was taken.
+    public int getNumJobsHandled() {
+        return numJobsHandled;
+    }
+
+    // Returns the number of servers.
+    public int getNumServers() {
+        return queueLengths.length;
+    }
+
+    // Returns the remaining work queued at a server.
+    public double getRemainingWork(int server) {
+        return remainingWork[server];
+    }
+
+    // Returns the number of jobs queued at a server.
+    public int getQueueLength(int server) {
+        return queueLengths[server];
+    }
+
+    // Draws the farm: the time and job count, and one row per server.
+    public void draw(Graphics g) {
+        int k = queueLengths.length;
+        double sep = (ServerFarmViz.HEIGHT - 20) / (k + 2.0);
+        g.drawString("Time: " + time, (int) sep, ServerFarmViz.HEIGHT - 20);
+        g.drawString("Jobs handled: " + numJobsHandled, (int) sep, ServerFarmViz.HEIGHT - 10);
+        for (int i = 0; i < k; i++) {
+            Server.drawState(g, (i % 2 == 0) ? Color.GRAY : Color.DARK_GRAY, (i + 1) * sep, k, remainingWork[i], queueLengths[i]);
+        }
+    }
+}
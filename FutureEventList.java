@@ -0,0 +1,142 @@
+/*
+file name:      FutureEventList.java
+Authors:        Vishnu Varadhan
+last modified:  10/18/2026
+Class Purpose:  Future-event list for the discrete-event simulation kernel in JobDispatcher. Holds at most one
+                pending completion event per server in an indexed binary min-heap keyed on the event time, so
+                the dispatcher can jump straight to the next server whose state changes instead of sweeping
+                every server on each arrival. Arrivals come in time order from the job stream, so the next
+                arrival is simply the time the list is drained up to. Scheduling, rescheduling and removing an
+                event all cost O(log k) for k servers.
+*/
+
+import java.util.Arrays;
+
+public class FutureEventList {
+    private double[] eventTimes; // pending event time for each server, indexed by server
+    private int[] heap;          // server indices ordered as a binary min-heap on eventTimes
+    private int[] positions;     // heap slot of each server, or -1 when it has no pending event
+    private int size;
+
+    // Constructor: Creates an empty event list for servers numbered 0 to numServers - 1.
+    public FutureEventList(int numServers) {
+        eventTimes = new double[numServers];
+        heap = new int[numServers];
+        positions = new int[numServers];
+        Arrays.fill(positions, -1);
+        size = 0;
+    }
+
+    // Returns the number of servers with a pending event.
+    public int size() {
+        return size;
+    }
+
+    // Returns true if no server has a pending event.
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Returns the server whose event comes first.
+    public int nextServer() {
+        return heap[0];
+    }
+
+    // Returns the time of the earliest pending event, or positive infinity if there is none.
+    public double nextTime() {
+        return size == 0 ? Double.POSITIVE_INFINITY : eventTimes[heap[0]];
+    }
+
+    // Returns the time of a server's pending event, or positive infinity if it has none.
+    public double getTime(int server) {
+        return positions[server] < 0 ? Double.POSITIVE_INFINITY : eventTimes[server];
+    }
+
+    // Sets the pending event of a server to the given time. An infinite time removes the event.
+    public void schedule(int server, double time) {
+        if (time == Double.POSITIVE_INFINITY) {
+            cancel(server);
+            return;
+        }
+        int slot = positions[server];
+        if (slot < 0) {
+            eventTimes[server] = time;
+            heap[size] = server;
+            positions[server] = size;
+            siftUp(size++);
+        } else {
+            double old = eventTimes[server];
+            eventTimes[server] = time;
+            if (time < old) {
+                siftUp(slot);
+            } else {
+                siftDown(slot);
+            }
+        }
+    }
+
+    // Removes the pending event of a server, if it has one.
+    public void cancel(int server) {
+        int slot = positions[server];
+        if (slot < 0) {
+            return;
+        }
+        positions[server] = -1;
+        size--;
+        if (slot != size) {
+            int last = heap[size];
+            heap[slot] = last;
+            positions[last] = slot;
+            siftDown(slot);
+            siftUp(positions[last]);
+        }
+    }
+
+    // Removes every pending event.
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int slot) {
+        int server = heap[slot];
+        double time = eventTimes[server];
+        while (slot > 0) {
+            int parentSlot = (slot - 1) >>> 1;
+            int parent = heap[parentSlot];
+            if (eventTimes[parent] <= time) {
+                break;
+            }
+            heap[slot] = parent;
+            positions[parent] = slot;
+            slot = parentSlot;
+        }
+        heap[slot] = server;
+        positions[server] = slot;
+    }
+
+    private void siftDown(int slot) {
+        int server = heap[slot];
+        double time = eventTimes[server];
+        int half = size >>> 1;
+        while (slot < half) {
+            int childSlot = 2 * slot + 1;
+            int child = heap[childSlot];
+            int rightSlot = childSlot + 1;
+            if (rightSlot < size && eventTimes[heap[rightSlot]] < eventTimes[child]) {
+                childSlot = rightSlot;
+                child = heap[rightSlot];
+            }
+            if (time <= eventTimes[child]) {
+                break;
+            }
+            heap[slot] = child;
+            positions[child] = slot;
+            slot = childSlot;
+        }
+        heap[slot] = server;
+        positions[server] = slot;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+file name:      IdleServerSet.java
+Authors:        Vishnu Varadhan
+last modified:  10/18/2026
+Class Purpose:  Set of idle servers for the Join-Idle-Queue dispatcher, kept as a bitset with one bit per server
+                and a summary bitset with one bit per non-empty word. Adding and removing a server cost O(1), and
+                finding the next idle server after a given one reads one word and, if that is empty, the summary,
+                which covers 4,096 servers per word. Unlike a queue of idle reports, the set does not depend on the
+                order in which servers became idle, only on which servers are idle.
+*/
+
+public class IdleServerSet {
+    private final int numServers;
+    private final long[] words;    // bit i is set if server i is idle
+    private final long[] summary;  // bit w is set if words[w] is not 0
+    private int size;
+
+    // Constructor: Creates an empty set over servers numbered 0 to numServers - 1.
+    public IdleServerSet(int numServers) {
+        this.numServers = numServers;
+        this.words = new long[(numServers + 63) >>> 6];
+        this.summary = new long[(words.length + 63) >>> 6];
+        this.size = 0;
+    }
+
+    // Returns the number of idle servers.
+    public int size() {
+        return size;
+    }
+
+    // Returns true if no server is idle.
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Returns true if the server is in the set.
+    public boolean contains(int server) {
+        return (words[server >>> 6] & (1L << server)) != 0;
+    }
+
+    // Adds a server to the set, if it is not already in it.
+    public void add(int server) {
+        int w = server >>> 6;
+        long bit = 1L << server;
+        if ((words[w] & bit) == 0) {
+            words[w] |= bit;
+            summary[w >>> 6] |= 1L << w;
+            size++;
+        }
+    }
+
+    // Removes a server from the set, if it is in it.
+    public void remove(int server) {
+        int w = server >>> 6;
+        long bit = 1L << server;
+        if ((words[w] & bit) != 0) {
+            words[w] &= ~bit;
+            if (words[w] == 0) {
+                summary[w >>> 6] &= ~(1L << w);
+            }
+            size--;
+        }
+    }
+
+    // Returns the first server in the set at or after the given one, wrapping around to server 0, or -1 if the set is empty.
+    public int next(int from) {
+        if (size == 0) {
+            return -1;
+        }
+        int server = nextAtOrAfter(from);
+        return server >= 0 ? server : nextAtOrAfter(0);
+    }
+
+    private int nextAtOrAfter(int from) {
+        if (from >= numServers) {
+            return -1;
+        }
+        int w = from >>> 6;
+        long word = words[w] & (-1L << from);
+        if (word != 0) {
+            return (w << 6) + Long.numberOfTrailingZeros(word);
+        }
+        // Find the next non-empty word from the summary
+        int nextWord = w + 1;
+        if (nextWord >= words.length) {
+            return -1;
+        }
+        int s = nextWord >>> 6;
+        long summaryWord = summary[s] & (-1L << nextWord);
+        while (summaryWord == 0) {
+            if (++s >= summary.length) {
+                return -1;
+            }
+            summaryWord = summary[s];
+        }
+        int found = (s << 6) + Long.numberOfTrailingZeros(summaryWord);
+        return (found << 6) + Long.numberOfTrailingZeros(words[found]);
+    }
+}
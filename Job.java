@@ -17,6 +17,20 @@ public class Job {
 		this.processingTimeSpent = 0. ;
 	}
 
+	public Job(double arrivalTime, double processingTimeNeeded, double processingTimeSpent) {
+		this.arrivalTime = arrivalTime ;
+		this.processingTimeNeeded = processingTimeNeeded ;
+		this.processingTimeSpent = processingTimeSpent ;
+	}
+
+	//Reuses this job for a new arrival, so a single Job can carry a stream of jobs that are stored elsewhere
+	public void reset(double arrivalTime, double processingTimeNeeded) {
+		this.arrivalTime = arrivalTime ;
+		this.finishTime = 0. ;
+		this.processingTimeNeeded = processingTimeNeeded ;
+		this.processingTimeSpent = 0. ;
+	}
+
 	public double getArrivalTime() {
 		return this.arrivalTime;
 	}
@@ -4,17 +4,40 @@ Authors:        Vishnu Varadhan
 last modified:  03/24/2024
 Class Purpose:  This abstract class defines the structure and functionality of a job dispatcher within a server farm simulation. 
                 It manages a list of servers, distributing jobs among them based on the specific implementation of the pickServer method.
+                Time is advanced as a discrete-event simulation: a future-event list holds the next completion of every
+                busy server, so each arrival only touches the servers whose state actually changes.
+                The queue length and remaining work of every server are mirrored in two primitive arrays, updated
+                whenever a server changes, so policies read loads from contiguous memory instead of calling into
+                Server objects scattered across the heap.
+                Dispatch decisions and the processing of servers can be recorded as sampled Java Flight Recorder
+                events (see FarmEvents).
 */
 
 import java.awt.Graphics; 
-import java.awt.Color;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
 
 public abstract class JobDispatcher {
     protected ArrayList<Server> serverList;
     private int numOfJobs;
     private double time; 
     private ServerFarmViz visualViz; 
+    private FutureEventList events;
+    private ShardedTimeAdvance shards; // null while every server is advanced on the simulation thread
+    private Job scratchJob; // carries jobs handed over as primitive values
+    private Supplier<Server> serverFactory; // creates the servers, FIFO unless useServers says otherwise
+    private int[] serverQueueLengths;     // size() of every server as of its last change
+    private double[] serverRemainingWork; // remainingWorkInQueue() of every server as of its last change
+    private int dispatchSampleCountdown;  // decisions left until the next one that may be recorded as a FarmEvents.Dispatch
+    private int processSampleCountdown;   // processTo calls left until the next one that may be recorded as a FarmEvents.Process
+    private DispatcherStats statistics;   // null unless registerStatistics has been called
+    private int statisticsCountdown;      // jobs left until the next statistics snapshot
 
     // Constructor: Initializes the dispatcher with a specified number of servers and visualization flag.
     public JobDispatcher(int k, boolean showViz) {
@@ -22,9 +45,18 @@ public abstract class JobDispatcher {
         numOfJobs = 0;
         time = 0;
         visualViz = new ServerFarmViz(this, showViz);
+        events = new FutureEventList(k);
+        scratchJob = new Job(0, 0);
+        serverFactory = Server::new;
+        serverQueueLengths = new int[k];
+        serverRemainingWork = new double[k];
+        dispatchSampleCountdown = FarmEvents.SAMPLE_EVERY;
+        processSampleCountdown = FarmEvents.SAMPLE_EVERY;
 
         for (int i = 0; i < k; i++) {
-            serverList.add(new Server());
+            Server server = new Server();
+            server.setServerIndex(i);
+            serverList.add(server);
         }
     }
 
@@ -38,25 +70,246 @@ public abstract class JobDispatcher {
         return serverList;
     }
 
-    // Advances system time to a specified time and processes jobs in each server up to this time.
+    // Replaces every server with a new one from the given factory, such as PreemptiveServer::new or
+    // ProcessorSharingServer::new, to change how each server schedules its jobs. Must be called before any job is handled.
+    public void useServers(Supplier<Server> serverFactory) {
+        if (numOfJobs > 0) {
+            throw new IllegalStateException("Servers can only be replaced before the first job is handled");
+        }
+        this.serverFactory = serverFactory;
+        for (int i = 0; i < serverList.size(); i++) {
+            Server server = serverFactory.get();
+            server.setServerIndex(i);
+            serverList.set(i, server);
+        }
+        if (shards != null) {
+            // Restart the shard workers so they pick up the new servers
+            useShards(shards.getNumShards());
+        }
+        for (int i = 0; i < serverList.size(); i++) {
+            loadChanged(i);
+        }
+    }
+
+    // Splits the servers into shards that advance in parallel, each on its own thread (see ShardedTimeAdvance).
+    // The results are identical to a serial run. One shard turns sharding off again and stops the threads.
+    public void useShards(int numShards) {
+        double[] eventTimes = new double[serverList.size()];
+        for (int i = 0; i < eventTimes.length; i++) {
+            eventTimes[i] = getEventTime(i);
+        }
+        if (shards != null) {
+            shards.stop();
+            shards = null;
+        }
+        events.clear();
+        if (numShards > 1 && serverList.size() > 1) {
+            shards = new ShardedTimeAdvance(serverList, numShards);
+        }
+        for (int i = 0; i < eventTimes.length; i++) {
+            schedule(i, eventTimes[i]);
+        }
+    }
+
+    // Returns the number of shards the servers are split into; 1 if time advances serially.
+    public int getNumShards() {
+        return shards == null ? 1 : shards.getNumShards();
+    }
+
+    // Advances system time to a specified time, processing every completion event that falls before it.
+    // Servers without an event are left alone; their clocks catch up the next time a job is added to them.
     public void advanceTimeTo(double time) {
         this.time = time;
-        for (Server server : serverList) {
-            server.processTo(time);
+        if (shards != null) {
+            shards.advanceTo(time);
+            applyShardChanges();
+            return;
         }
+        while (events.nextTime() <= time) {
+            double eventTime = events.nextTime();
+            Server server = serverList.get(events.nextServer());
+            processServer(server, eventTime);
+            scheduleNextCompletion(server, eventTime);
+            loadChanged(server.getServerIndex());
+        }
+    }
+
+    // Refreshes the load of every server the shards changed. The hooks only keep indexes over the current loads,
+    // so it does not matter that they run in shard order rather than in event order.
+    private void applyShardChanges() {
+        for (int s = 0; s < shards.getNumShards(); s++) {
+            for (int i = 0; i < shards.getNumChanged(s); i++) {
+                loadChanged(shards.getChanged(s, i));
+            }
+        }
+    }
+
+    // Puts the next completion of a server on the future-event list, never earlier than the given time.
+    private void scheduleNextCompletion(Server server, double notBefore) {
+        schedule(server.getServerIndex(), completionEventTime(server, notBefore));
+    }
+
+    // Returns the time of the next completion event of a server, never earlier than the given time.
+    static double completionEventTime(Server server, double notBefore) {
+        double nextCompletion = server.nextCompletionTime();
+        if (nextCompletion <= notBefore) {
+            nextCompletion = Math.nextUp(notBefore);
+        }
+        return nextCompletion;
+    }
+
+    private void schedule(int serverIndex, double eventTime) {
+        if (shards != null) {
+            shards.schedule(serverIndex, eventTime);
+        } else {
+            events.schedule(serverIndex, eventTime);
+        }
+    }
+
+    private double getEventTime(int serverIndex) {
+        return shards != null ? shards.getTime(serverIndex) : events.getTime(serverIndex);
     }
 
     // Abstract method to be implemented by subclasses for picking the appropriate server for a job.
     public abstract Server pickServer(Job j);
 
+    // Called after the queue of a server may have changed: a job was added to it, or it processed jobs.
+    // Subclasses that keep an index over server loads override this to update it; by default it does nothing.
+    // The mirrored loads returned by getQueueLength and getRemainingWork are already up to date when it is called.
+    protected void serverUpdated(int serverIndex) {
+    }
+
+    // Refreshes the mirrored load of a server after its queue may have changed, then lets the policy update its index.
+    private void loadChanged(int serverIndex) {
+        Server server = serverList.get(serverIndex);
+        serverQueueLengths[serverIndex] = server.size();
+        serverRemainingWork[serverIndex] = server.remainingWorkInQueue();
+        serverUpdated(serverIndex);
+    }
+
+    // Returns the number of jobs at a server, read from the mirrored loads.
+    public int getQueueLength(int serverIndex) {
+        return serverQueueLengths[serverIndex];
+    }
+
+    // Returns the remaining work at a server, read from the mirrored loads.
+    public double getRemainingWork(int serverIndex) {
+        return serverRemainingWork[serverIndex];
+    }
+
     // Handles a new job by advancing time, picking a server, and adding the job to the chosen server.
     public void handleJob(Job job) {
+        dispatch(job);
+    }
+
+    // Handles a job given by its arrival and estimated processing times, like handleJob, and returns the index of the
+    // server it was sent to. Used when the dispatcher runs as an online load balancer (see DispatchService).
+    public int assignJob(double arrivalTime, double processingTimeNeeded) {
+        scratchJob.reset(arrivalTime, processingTimeNeeded);
+        return dispatch(scratchJob).getServerIndex();
+    }
+
+    // Reports that a job sent to a BackendServer by assignJob has finished at the given time, which becomes the
+    // current time if it is later.
+    public void completeJob(int serverIndex, double arrivalTime, double processingTimeNeeded, double finishTime) {
+        Server server = serverList.get(serverIndex);
+        if (!(server instanceof BackendServer)) {
+            throw new IllegalStateException("Only backend servers report completions; see useServers");
+        }
+        advanceTimeTo(Math.max(time, finishTime));
+        ((BackendServer) server).completeJob(arrivalTime, processingTimeNeeded, time);
+        loadChanged(serverIndex);
+    }
+
+    private Server dispatch(Job job) {
         advanceTimeTo(job.getArrivalTime());
         visualViz.repaint();
-        Server chosenServer = pickServer(job);
+        Server chosenServer;
+        if (--dispatchSampleCountdown > 0) {
+            chosenServer = pickServer(job);
+        } else {
+            chosenServer = pickServerRecorded(job);
+        }
+        processServer(chosenServer, time);
         chosenServer.addJob(job);
+        scheduleNextCompletion(chosenServer, time);
+        loadChanged(chosenServer.getServerIndex());
         numOfJobs++;
+        jobDispatched(job, chosenServer.getServerIndex());
+        if (statistics != null && --statisticsCountdown <= 0) {
+            publishStatistics();
+        }
         visualViz.repaint();
+        return chosenServer;
+    }
+
+    // Picks a server and, if the event is enabled, records the decision as a FarmEvents.Dispatch.
+    private Server pickServerRecorded(Job job) {
+        dispatchSampleCountdown = FarmEvents.SAMPLE_EVERY;
+        FarmEvents.Dispatch event = new FarmEvents.Dispatch();
+        if (!event.isEnabled()) {
+            return pickServer(job);
+        }
+        event.begin();
+        Server chosenServer = pickServer(job);
+        event.end();
+        if (event.shouldCommit()) {
+            int serverIndex = chosenServer.getServerIndex();
+            event.dispatcher = getClass().getSimpleName();
+            event.server = serverIndex;
+            event.queueLength = serverQueueLengths[serverIndex];
+            event.remainingWork = serverRemainingWork[serverIndex];
+            event.simulatedTime = time;
+            event.jobsHandled = numOfJobs;
+            event.commit();
+        }
+        return chosenServer;
+    }
+
+    // Processes a server up to the given time, recording every FarmEvents.SAMPLE_EVERY-th call as a
+    // FarmEvents.Process if the event is enabled.
+    private void processServer(Server server, double processTime) {
+        if (--processSampleCountdown > 0) {
+            server.processTo(processTime);
+            return;
+        }
+        processSampleCountdown = FarmEvents.SAMPLE_EVERY;
+        FarmEvents.Process event = new FarmEvents.Process();
+        if (!event.isEnabled()) {
+            server.processTo(processTime);
+            return;
+        }
+        long iterationsBefore = server.getProcessIterations();
+        int completedBefore = server.getNumJobsProcessed();
+        double timeBefore = server.getTime();
+        event.begin();
+        server.processTo(processTime);
+        event.end();
+        if (event.shouldCommit()) {
+            event.server = server.getServerIndex();
+            event.iterations = server.getProcessIterations() - iterationsBefore;
+            event.jobsCompleted = server.getNumJobsProcessed() - completedBefore;
+            event.timeAdvanced = server.getTime() - timeBefore;
+            event.commit();
+        }
+    }
+
+    // Handles a job given by its arrival and processing times. The Job passed to pickServer is reused for every call,
+    // which is safe because servers copy a job's state when it is added; pickServer must not hold on to it.
+    public void handleJob(double arrivalTime, double processingTimeNeeded) {
+        scratchJob.reset(arrivalTime, processingTimeNeeded);
+        handleJob(scratchJob);
+    }
+
+    // Handles jobs from a source, such as a JobMaker or a recorded trace, until it runs out or maxJobs have been handled.
+    // Returns the number of jobs handled.
+    public long handleJobs(JobSource source, long maxJobs) {
+        long handled = 0;
+        while (handled < maxJobs && source.hasNextJob()) {
+            source.dispatchNextJob(this);
+            handled++;
+        }
+        return handled;
     }
 
     // Processes remaining jobs in each server and advances the system time to when all jobs are completed.
@@ -69,10 +322,136 @@ public abstract class JobDispatcher {
             }
         }
         double finishTime = this.time + maxTimeToFinish;
-        for (Server server : serverList) {
-            server.processTo(finishTime);
+        if (shards != null) {
+            shards.processAllTo(finishTime);
+            applyShardChanges();
+        } else {
+            for (Server server : serverList) {
+                processServer(server, finishTime);
+                scheduleNextCompletion(server, finishTime);
+                loadChanged(server.getServerIndex());
+            }
         }
         this.time = finishTime;
+        if (statistics != null) {
+            publishStatistics();
+        }
+        visualViz.repaint();
+        visualViz.finish();
+    }
+
+    // Registers a DispatcherStats MBean for this dispatcher under the given name, replacing any earlier one, and
+    // publishes a snapshot every publishEvery jobs and when finishUp is called. Returns the statistics.
+    public DispatcherStats registerStatistics(String name, int publishEvery) {
+        unregisterStatistics();
+        DispatcherStats stats = new DispatcherStats(this, name, publishEvery);
+        stats.register();
+        statistics = stats;
+        publishStatistics();
+        return stats;
+    }
+
+    // Removes this dispatcher's MBean, if it has one. The last snapshot stays readable through the DispatcherStats.
+    public void unregisterStatistics() {
+        if (statistics != null) {
+            statistics.unregister();
+            statistics = null;
+        }
+    }
+
+    private void publishStatistics() {
+        statisticsCountdown = statistics.getPublishEvery();
+        statistics.publish(this);
+    }
+
+    // Writes the state of the simulation: the clock, the number of jobs handled, the pending event and state of every
+    // server, and whatever state the dispatching policy keeps of its own (see writePolicyState).
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeUTF(getClass().getName());
+        out.writeDouble(time);
+        out.writeInt(numOfJobs);
+        out.writeInt(serverList.size());
+        for (int i = 0; i < serverList.size(); i++) {
+            out.writeDouble(getEventTime(i));
+            serverList.get(i).writeTo(out);
+        }
+        ByteArrayOutputStream policyState = new ByteArrayOutputStream();
+        try (DataOutputStream policyOut = new DataOutputStream(policyState)) {
+            writePolicyState(policyOut);
+        }
+        out.writeInt(policyState.size());
+        policyState.writeTo(out);
+    }
+
+    // Restores state written by writeTo into a newly created dispatcher, which may use a different policy or a
+    // different number of servers than the one that wrote it. The policy's own state is only restored when both
+    // match, in which case the simulation continues exactly as the saved one would have. Extra servers start out
+    // idle. The jobs queued at servers that no longer exist are dispatched again, as if they had just arrived,
+    // and the statistics of the jobs those servers finished are folded into the remaining servers.
+    public void readFrom(DataInputStream in) throws IOException {
+        String savedPolicy = in.readUTF();
+        time = in.readDouble();
+        numOfJobs = in.readInt();
+        int savedServers = in.readInt();
+        int k = serverList.size();
+        events.clear();
+        if (shards != null) {
+            shards.clear();
+        }
+        List<Server> removedServers = new ArrayList<>();
+        for (int i = 0; i < savedServers; i++) {
+            double eventTime = in.readDouble();
+            Server server = i < k ? serverList.get(i) : serverFactory.get();
+            server.readFrom(in);
+            if (i < k) {
+                schedule(i, eventTime);
+            } else {
+                removedServers.add(server);
+            }
+        }
+        for (int i = savedServers; i < k; i++) {
+            serverList.get(i).processTo(time);
+        }
+        byte[] policyState = new byte[in.readInt()];
+        in.readFully(policyState);
+        if (savedPolicy.equals(getClass().getName()) && savedServers == k) {
+            readPolicyState(new DataInputStream(new ByteArrayInputStream(policyState)));
+        }
+        for (int i = 0; i < k; i++) {
+            loadChanged(i);
+        }
+
+        for (int r = 0; r < removedServers.size(); r++) {
+            Server removed = removedServers.get(r);
+            // Bring the removed server up to the saved clock first, so the job in service keeps the processing it
+            // got since the server was last advanced. Its next event is later than time, so nothing finishes early.
+            removed.processTo(time);
+            serverList.get(r % k).mergeStatistics(removed);
+            for (Job job : removed.getQueuedJobs()) {
+                Server chosenServer = pickServer(job);
+                processServer(chosenServer, time);
+                chosenServer.addJob(job.getArrivalTime(), job.getProcessingTimeNeeded(),
+                        job.getProcessingTimeNeeded() - job.getProcessingTimeRemaining());
+                scheduleNextCompletion(chosenServer, time);
+                loadChanged(chosenServer.getServerIndex());
+            }
+        }
+    }
+
+    // Called once for every job after it has been dispatched and counted, with the server it went to. Policies that
+    // learn from the jobs they dispatch, such as their sizes, do it here rather than in pickServer, which is also
+    // called to re-dispatch the jobs of removed servers, and by benchmarks. pickServer may still advance a cursor or
+    // a random stream, as round robin and the sampling policies do. Does nothing by default.
+    protected void jobDispatched(Job job, int serverIndex) {
+    }
+
+    // Writes the state the dispatching policy keeps of its own, such as a counter or a random stream.
+    // Policies whose choices depend only on the servers keep no state and write nothing, which is the default.
+    protected void writePolicyState(DataOutputStream out) throws IOException {
+    }
+
+    // Restores the state written by writePolicyState.
+    protected void readPolicyState(DataInputStream in) throws IOException {
     }
 
     // Returns the total number of jobs handled by all servers.
@@ -89,13 +468,41 @@ public abstract class JobDispatcher {
         return totalWaitingTime / numOfJobs;
     }
 
+    // Returns the total waiting time of the jobs finished so far by all servers.
+    public double getTotalWaitingTime() {
+        double totalWaitingTime = 0.;
+        for (Server s : serverList) {
+            totalWaitingTime += s.getTotalWaitingTime();
+        }
+        return totalWaitingTime;
+    }
+
+    // Returns the number of jobs finished so far by all servers.
+    public long getNumJobsFinished() {
+        long finished = 0;
+        for (Server s : serverList) {
+            finished += s.getNumJobsProcessed();
+        }
+        return finished;
+    }
+
+    // Merges the waiting-time histograms of all servers into a farm-wide view.
+    public LatencyHistogram getWaitingTimeHistogram() {
+        LatencyHistogram farmWide = new LatencyHistogram();
+        for (Server s : serverList) {
+            farmWide.merge(s.getWaitingTimeHistogram());
+        }
+        return farmWide;
+    }
+
+    // Returns the visualization of this dispatcher, to change its speed-up or frame rate or to record frames.
+    public ServerFarmViz getVisualization() {
+        return visualViz;
+    }
+
     // Draws the current state of the server farm using the provided graphics context.
+    // Must be called on the thread that runs the simulation; the visualization draws published snapshots instead.
     public void draw(Graphics g) {
-        double sep = (ServerFarmViz.HEIGHT - 20) / (getServerList().size() + 2.0);
-        g.drawString("Time: " + getTime(), (int) sep, ServerFarmViz.HEIGHT - 20);
-        g.drawString("Jobs handled: " + getNumJobsHandled(), (int) sep, ServerFarmViz.HEIGHT - 10);
-        for (int i = 0; i < getServerList().size(); i++) {
-            getServerList().get(i).draw(g, (i % 2 == 0) ? Color.GRAY : Color.DARK_GRAY, (i + 1) * sep, getServerList().size());
-        }
+        FarmSnapshot.of(this).draw(g);
     }
 }
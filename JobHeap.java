@@ -0,0 +1,178 @@
+/*
+file name:      JobHeap.java
+Authors:        Vishnu Varadhan
+last modified:  10/18/2026
+Class Purpose:  Array-indexed binary min-heap of jobs keyed on remaining processing time, used as the shortest
+                remaining processing time (SRPT) ready queue of the PreemptiveServer. Like the JobStore, jobs are
+                kept as parallel primitive arrays rather than Job objects, and ties are broken by arrival order at
+                the server so equal jobs are served first come, first served. Insert and extract cost O(log n);
+                nothing is allocated except when the backing arrays have to grow.
+*/
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+public class JobHeap {
+    private double[] keys;  // remaining processing time of each job in the heap
+    private double[] arrivalTimes;
+    private double[] processingTimesNeeded;
+    private long[] order;   // insertion sequence number, used to break ties between equal keys
+    private long nextOrder;
+    private int size;
+
+    // Constructor: Creates an empty heap with room for a few jobs before it has to grow.
+    public JobHeap() {
+        this(16);
+    }
+
+    // Constructor: Creates an empty heap with room for the given number of jobs before it has to grow.
+    public JobHeap(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        keys = new double[capacity];
+        arrivalTimes = new double[capacity];
+        processingTimesNeeded = new double[capacity];
+        order = new long[capacity];
+        nextOrder = 0;
+        size = 0;
+    }
+
+    // Returns the number of jobs in the heap.
+    public int size() {
+        return size;
+    }
+
+    // Returns true if the heap holds no jobs.
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Adds a job that has not been processed yet, keyed on its processing time.
+    public void add(double arrivalTime, double processingTimeNeeded) {
+        add(arrivalTime, processingTimeNeeded, processingTimeNeeded);
+    }
+
+    // Adds a job, keyed on the processing time it still needs.
+    public void add(double arrivalTime, double processingTimeNeeded, double processingTimeRemaining) {
+        if (size == keys.length) {
+            grow();
+        }
+        int slot = size++;
+        double key = processingTimeRemaining;
+        long seq = nextOrder++;
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (!less(key, seq, keys[parent], order[parent])) {
+                break;
+            }
+            move(parent, slot);
+            slot = parent;
+        }
+        keys[slot] = key;
+        arrivalTimes[slot] = arrivalTime;
+        processingTimesNeeded[slot] = processingTimeNeeded;
+        order[slot] = seq;
+    }
+
+    // Returns the arrival time of the job with the least remaining processing time.
+    public double peekArrivalTime() {
+        checkNotEmpty();
+        return arrivalTimes[0];
+    }
+
+    // Returns the total processing time needed by the job with the least remaining processing time.
+    public double peekProcessingTimeNeeded() {
+        checkNotEmpty();
+        return processingTimesNeeded[0];
+    }
+
+    // Returns the least remaining processing time in the heap, or positive infinity if the heap is empty.
+    public double peekKey() {
+        return size == 0 ? Double.POSITIVE_INFINITY : keys[0];
+    }
+
+    // Removes the job with the least remaining processing time.
+    public void poll() {
+        checkNotEmpty();
+        size--;
+        double lastKey = keys[size];
+        double lastArrival = arrivalTimes[size];
+        double lastNeeded = processingTimesNeeded[size];
+        long lastOrder = order[size];
+        if (size > 0) {
+            int slot = 0;
+            int half = size >>> 1;
+            while (slot < half) {
+                int child = 2 * slot + 1;
+                int right = child + 1;
+                if (right < size && less(keys[right], order[right], keys[child], order[child])) {
+                    child = right;
+                }
+                if (!less(keys[child], order[child], lastKey, lastOrder)) {
+                    break;
+                }
+                move(child, slot);
+                slot = child;
+            }
+            keys[slot] = lastKey;
+            arrivalTimes[slot] = lastArrival;
+            processingTimesNeeded[slot] = lastNeeded;
+            order[slot] = lastOrder;
+        }
+    }
+
+    // Lowers the key of the job at the top of the heap after it has been processed. Processing the
+    // minimum job only ever shrinks its key, so it stays at the top and no sifting is needed.
+    public void decreaseMinKey(double remaining) {
+        if (remaining > keys[0]) {
+            throw new IllegalArgumentException("Key can only decrease: " + remaining + " > " + keys[0]);
+        }
+        keys[0] = remaining;
+    }
+
+    // Returns copies of the jobs in the heap in the order they were added, so adding them to an empty heap
+    // in list order rebuilds the same heap, ties included.
+    public List<Job> toList() {
+        Integer[] slots = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = i;
+        }
+        Arrays.sort(slots, (a, b) -> Long.compare(order[a], order[b]));
+        List<Job> jobs = new ArrayList<>(size);
+        for (int slot : slots) {
+            jobs.add(new Job(arrivalTimes[slot], processingTimesNeeded[slot], processingTimesNeeded[slot] - keys[slot]));
+        }
+        return jobs;
+    }
+
+    // Removes every job from the heap.
+    public void clear() {
+        size = 0;
+    }
+
+    private void checkNotEmpty() {
+        if (size == 0) {
+            throw new NoSuchElementException("The heap is empty.");
+        }
+    }
+
+    private static boolean less(double keyA, long orderA, double keyB, long orderB) {
+        return keyA < keyB || (keyA == keyB && orderA < orderB);
+    }
+
+    private void move(int from, int to) {
+        keys[to] = keys[from];
+        arrivalTimes[to] = arrivalTimes[from];
+        processingTimesNeeded[to] = processingTimesNeeded[from];
+        order[to] = order[from];
+    }
+
+    private void grow() {
+        int capacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        arrivalTimes = Arrays.copyOf(arrivalTimes, capacity);
+        processingTimesNeeded = Arrays.copyOf(processingTimesNeeded, capacity);
+        order = Arrays.copyOf(order, capacity);
+    }
+}
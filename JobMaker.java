@@ -4,37 +4,111 @@ Authors:        Max Bender, Modified by Ike Lage
 last modified:  03/07/2024
 */
 
-import java.util.Random;
-import java.io.*;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 
-public class JobMaker {
+public class JobMaker implements JobSource {
 
     private double meanArrivalTime ;
     private double meanProcessingTime ;
     private double curTime ;
+    private SplitMix64 random ;
 
     public JobMaker( double meanArrivalTime , double meanProcessingTime ) {
+        this( meanArrivalTime , meanProcessingTime , new SplitMix64() );
+    }
+
+    //Seeded job maker: the same seed always produces the same job stream
+    public JobMaker( double meanArrivalTime , double meanProcessingTime , long seed ) {
+        this( meanArrivalTime , meanProcessingTime , new SplitMix64( seed ) );
+    }
+
+    private JobMaker( double meanArrivalTime , double meanProcessingTime , SplitMix64 random ) {
         this.meanArrivalTime = meanArrivalTime ;
         this.meanProcessingTime = meanProcessingTime ;
         this.curTime = 0;
+        this.random = random ;
+    }
+
+    public double getMeanArrivalTime() {
+        return this.meanArrivalTime ;
+    }
+
+    public double getMeanProcessingTime() {
+        return this.meanProcessingTime ;
+    }
+
+    //Arrival time of the next job this maker will produce
+    public double getCurrentTime() {
+        return this.curTime ;
     }
 
     public double nextExponential(double mean) {
-        Random r = new Random();
-        double val = - mean * Math.log(r.nextDouble());
+        //1 - u lies in (0, 1], so the log is always finite
+        double val = - mean * Math.log(1.0 - random.nextDouble());
         double valTweeked = (1.0 * ((int) (val * 128))) / 128;
         valTweeked = Math.max(valTweeked, 1.0/128);
         return valTweeked;
     }
 
-    public Job getNextJob(){ 
+    //A job maker never runs out of jobs
+    public boolean hasNextJob(){
+        return true ;
+    }
+
+    public Job getNextJob(){
         //Get total processing time of job
         double jobProcessingTime = nextExponential( this.meanProcessingTime );
         //jobProcessingTime = 5 ;
         Job nextJob = new Job( this.curTime , jobProcessingTime );
         //Set arrival time of the following job
-        this.curTime += nextExponential( this.meanArrivalTime ); 
+        this.curTime += nextExponential( this.meanArrivalTime );
         return nextJob ;
     }
-    
-}
\ No newline at end of file
+
+    //Same job as getNextJob, handed to the dispatcher as primitive values
+    public void dispatchNextJob( JobDispatcher dispatcher ){
+        double jobProcessingTime = nextExponential( this.meanProcessingTime );
+        double arrivalTime = this.curTime ;
+        this.curTime += nextExponential( this.meanArrivalTime );
+        dispatcher.handleJob( arrivalTime , jobProcessingTime );
+    }
+
+    //Bulk version of getNextJob: writes the next count jobs into the arrays starting at offset,
+    //producing exactly the same jobs as count calls to getNextJob would
+    public void nextJobs( double[] arrivalTimes , double[] processingTimes , int offset , int count ){
+        for ( int i = offset ; i < offset + count ; i ++ ) {
+            processingTimes[i] = nextExponential( this.meanProcessingTime );
+            arrivalTimes[i] = this.curTime ;
+            this.curTime += nextExponential( this.meanArrivalTime );
+        }
+    }
+
+    //Saves the means, the arrival time of the next job and the random stream, so the stream can be continued later
+    public void writeTo( DataOutputStream out ) throws IOException {
+        out.writeDouble( this.meanArrivalTime );
+        out.writeDouble( this.meanProcessingTime );
+        out.writeDouble( this.curTime );
+        out.writeLong( this.random.getSeed() );
+        out.writeLong( this.random.getGamma() );
+    }
+
+    //Rebuilds a job maker saved by writeTo; it produces exactly the jobs the saved one would have produced next
+    public static JobMaker readFrom( DataInputStream in ) throws IOException {
+        double meanArrivalTime = in.readDouble();
+        double meanProcessingTime = in.readDouble();
+        double curTime = in.readDouble();
+        SplitMix64 random = new SplitMix64( in.readLong() , in.readLong() );
+        JobMaker jobMaker = new JobMaker( meanArrivalTime , meanProcessingTime , random );
+        jobMaker.curTime = curTime ;
+        return jobMaker ;
+    }
+
+    //Returns a new job maker with the same means and an independent random stream, starting at time 0.
+    //Use one split per thread or per replication; splitting advances this maker's stream.
+    public JobMaker split(){
+        return new JobMaker( this.meanArrivalTime , this.meanProcessingTime , random.split() );
+    }
+
+}
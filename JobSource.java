@@ -0,0 +1,32 @@
+/*
+file name:      JobSource.java
+Authors:        Vishnu Varadhan
+last modified:  10/18/2026
+Class Purpose:  A stream of jobs in arrival order that a JobDispatcher can consume. JobMaker produces synthetic
+                jobs forever; MappedJobTrace replays a recorded trace from disk. Sources that keep their jobs as
+                primitive values override dispatchNextJob to hand them straight to the dispatcher without
+                creating a Job object.
+*/
+
+public interface JobSource {
+
+    /**
+     * Returns true if the source has another job.
+     * @return true if the source has another job.
+     */
+    public boolean hasNextJob();
+
+    /**
+     * Returns the next job and moves past it.
+     * @return the next job.
+     */
+    public Job getNextJob();
+
+    /**
+     * Has the dispatcher handle the next job and moves past it.
+     * @param dispatcher the dispatcher that handles the job.
+     */
+    public default void dispatchNextJob(JobDispatcher dispatcher) {
+        dispatcher.handleJob(getNextJob());
+    }
+}
@@ -0,0 +1,99 @@
+/*
+file name:      JobStore.java
+Authors:        Vishnu Varadhan
+last modified:  10/18/2026
+Class Purpose:  First-in, first-out store of the jobs waiting at a server, kept as parallel DoubleArrayQueue
+                columns of arrival time, processing time needed and processing time spent instead of one
+                Job object and one list node per job. Jobs are addressed by their position in the queue,
+                with 0 being the job at the front. Nothing is allocated unless the rings have to grow, so a
+                server in steady state adds and retires jobs without producing garbage.
+*/
+
+public class JobStore {
+    private DoubleArrayQueue arrivalTimes;
+    private DoubleArrayQueue processingTimesNeeded;
+    private DoubleArrayQueue processingTimesSpent;
+
+    // Constructor: Creates an empty store with room for a few jobs before it has to grow.
+    public JobStore() {
+        this(16);
+    }
+
+    // Constructor: Creates an empty store with room for at least the given number of jobs before it has to grow.
+    public JobStore(int initialCapacity) {
+        arrivalTimes = new DoubleArrayQueue(initialCapacity);
+        processingTimesNeeded = new DoubleArrayQueue(initialCapacity);
+        processingTimesSpent = new DoubleArrayQueue(initialCapacity);
+    }
+
+    // Returns the number of jobs in the store.
+    public int size() {
+        return arrivalTimes.size();
+    }
+
+    // Returns true if the store holds no jobs.
+    public boolean isEmpty() {
+        return arrivalTimes.isEmpty();
+    }
+
+    // Adds a job that has not been processed yet to the back of the queue.
+    public void add(double arrivalTime, double processingTimeNeeded) {
+        add(arrivalTime, processingTimeNeeded, 0.);
+    }
+
+    // Adds a job to the back of the queue, along with the processing time it has already received.
+    public void add(double arrivalTime, double processingTimeNeeded, double processingTimeSpent) {
+        arrivalTimes.offer(arrivalTime);
+        processingTimesNeeded.offer(processingTimeNeeded);
+        processingTimesSpent.offer(processingTimeSpent);
+    }
+
+    // Removes the job at the front of the queue.
+    public void removeFirst() {
+        arrivalTimes.poll();
+        processingTimesNeeded.poll();
+        processingTimesSpent.poll();
+    }
+
+    // Removes every job from the store.
+    public void clear() {
+        arrivalTimes.clear();
+        processingTimesNeeded.clear();
+        processingTimesSpent.clear();
+    }
+
+    // Returns the arrival time of the job at the given position in the queue.
+    public double getArrivalTime(int position) {
+        return arrivalTimes.get(position);
+    }
+
+    // Returns the total processing time needed by the job at the given position in the queue.
+    public double getProcessingTimeNeeded(int position) {
+        return processingTimesNeeded.get(position);
+    }
+
+    // Returns the processing time already spent on the job at the given position in the queue.
+    public double getProcessingTimeSpent(int position) {
+        return processingTimesSpent.get(position);
+    }
+
+    // Returns the processing time still needed by the job at the given position in the queue.
+    public double getProcessingTimeRemaining(int position) {
+        return processingTimesNeeded.get(position) - processingTimesSpent.get(position);
+    }
+
+    // Returns true if the job at the given position in the queue has received all the processing it needs.
+    public boolean isFinished(int position) {
+        return getProcessingTimeRemaining(position) <= 0;
+    }
+
+    // Records that the job at the given position in the queue was processed for the given amount of time.
+    public void process(int position, double timeToProcessFor) {
+        processingTimesSpent.set(position, processingTimesSpent.get(position) + timeToProcessFor);
+    }
+
+    // Returns a Job holding a copy of the state of the job at the given position, for code that works with Job objects.
+    public Job getJob(int position) {
+        return new Job(arrivalTimes.get(position), processingTimesNeeded.get(position), processingTimesSpent.get(position));
+    }
+}
@@ -0,0 +1,60 @@
+/*
+file name:      JobTrace.java
+Authors:        Vishnu Varadhan
+last modified:  10/18/2026
+Class Purpose:  A recorded stream of jobs, stored as two primitive arrays of arrival times and processing times.
+                A trace is generated once and can then be replayed against any number of dispatchers and server
+                counts. Every configuration sees exactly the same workload (common random numbers), which removes
+                workload noise from comparisons and avoids regenerating the jobs for each run. Replaying never
+                modifies the trace, so one trace can be shared by runs on different threads.
+*/
+
+public class JobTrace {
+    private final double[] arrivalTimes;
+    private final double[] processingTimes;
+
+    // Constructor: Wraps arrays of arrival and processing times. The arrays must not be modified afterwards.
+    public JobTrace(double[] arrivalTimes, double[] processingTimes) {
+        if (arrivalTimes.length != processingTimes.length) {
+            throw new IllegalArgumentException("Arrival and processing time arrays differ in length: "
+                    + arrivalTimes.length + " != " + processingTimes.length);
+        }
+        this.arrivalTimes = arrivalTimes;
+        this.processingTimes = processingTimes;
+    }
+
+    // Records the next numJobs jobs of a JobMaker into a new trace.
+    public static JobTrace generate(JobMaker jobMaker, int numJobs) {
+        double[] arrivalTimes = new double[numJobs];
+        double[] processingTimes = new double[numJobs];
+        jobMaker.nextJobs(arrivalTimes, processingTimes, 0, numJobs);
+        return new JobTrace(arrivalTimes, processingTimes);
+    }
+
+    // Returns the number of jobs in the trace.
+    public int size() {
+        return arrivalTimes.length;
+    }
+
+    // Returns the arrival time of the i-th job.
+    public double getArrivalTime(int i) {
+        return arrivalTimes[i];
+    }
+
+    // Returns the processing time needed by the i-th job.
+    public double getProcessingTimeNeeded(int i) {
+        return processingTimes[i];
+    }
+
+    // Has the dispatcher handle every job in the trace.
+    public void replay(JobDispatcher dispatcher) {
+        replay(dispatcher, arrivalTimes.length);
+    }
+
+    // Has the dispatcher handle the first numJobs jobs in the trace.
+    public void replay(JobDispatcher dispatcher, int numJobs) {
+        for (int i = 0; i < numJobs; i++) {
+            dispatcher.handleJob(arrivalTimes[i], processingTimes[i]);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+file name:      JobTraceWriter.java
+Authors:        Vishnu Varadhan
+last modified:  10/18/2026
+Class Purpose:  Writes jobs to a binary trace file that MappedJobTrace can replay. The format is fixed width so a
+                reader can find any job by its index without parsing:
+
+                    header (32 bytes): int magic "SFJT", int version, long number of jobs, 16 reserved bytes
+                    one record per job (16 bytes): double arrival time, double processing time needed
+
+                Everything is little-endian. Jobs are buffered and written in large blocks, and the job count in
+                the header is filled in when the writer is closed, so a trace of any length can be recorded
+                without knowing its size in advance.
+
+                Run with: java JobTraceWriter <file> <number of jobs> <mean arrival time> <mean processing time> <seed>
+*/
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class JobTraceWriter implements Closeable {
+    static final int MAGIC = 0x544a4653; // "SFJT" when read as little-endian bytes
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int RECORD_BYTES = 16;
+    private static final int BUFFER_RECORDS = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private long numJobs;
+    private double lastArrivalTime;
+
+    // Constructor: Creates (or truncates) the trace file and writes a header with a job count of 0.
+    public JobTraceWriter(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer = ByteBuffer.allocateDirect(BUFFER_RECORDS * RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        numJobs = 0;
+        lastArrivalTime = Double.NEGATIVE_INFINITY;
+        try {
+            writeHeader();
+            channel.position(HEADER_BYTES);
+        } catch (IOException e) {
+            // The caller never gets the writer, so it cannot close the file itself
+            try {
+                channel.close();
+            } catch (IOException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
+    }
+
+    // Appends one job. Jobs must be written in order of arrival.
+    public void write(double arrivalTime, double processingTimeNeeded) throws IOException {
+        if (arrivalTime < lastArrivalTime) {
+            throw new IllegalArgumentException("Jobs must be written in order of arrival: " + arrivalTime
+                    + " arrives before " + lastArrivalTime);
+        }
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.putDouble(arrivalTime);
+        buffer.putDouble(processingTimeNeeded);
+        lastArrivalTime = arrivalTime;
+        numJobs++;
+    }
+
+    // Appends one job.
+    public void write(Job job) throws IOException {
+        write(job.getArrivalTime(), job.getProcessingTimeNeeded());
+    }
+
+    // Records the next numJobs jobs of a JobMaker, the same jobs its getNextJob would return.
+    public void write(JobMaker jobMaker, long numJobs) throws IOException {
+        double[] arrivalTimes = new double[BUFFER_RECORDS];
+        double[] processingTimes = new double[BUFFER_RECORDS];
+        for (long done = 0; done < numJobs; done += BUFFER_RECORDS) {
+            int count = (int) Math.min(BUFFER_RECORDS, numJobs - done);
+            jobMaker.nextJobs(arrivalTimes, processingTimes, 0, count);
+            for (int i = 0; i < count; i++) {
+                write(arrivalTimes[i], processingTimes[i]);
+            }
+        }
+    }
+
+    // Returns the number of jobs written so far.
+    public long getNumJobs() {
+        return numJobs;
+    }
+
+    // Writes the buffered jobs and the final job count, and closes the file.
+    public void close() throws IOException {
+        try {
+            flush();
+            writeHeader();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putLong(numJobs);
+        header.rewind();
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+    }
+
+    // Entry point: records a seeded JobMaker stream to a trace file.
+    public static void main(String[] args) throws IOException {
+        if (args.length < 5) {
+            System.out.println("Usage: java JobTraceWriter <file> <number of jobs> <mean arrival time> <mean processing time> <seed>");
+            return;
+        }
+        long numJobs = Long.parseLong(args[1]);
+        JobMaker jobMaker = new JobMaker(Double.parseDouble(args[2]), Double.parseDouble(args[3]), Long.parseLong(args[4]));
+        try (JobTraceWriter writer = new JobTraceWriter(Paths.get(args[0]))) {
+            writer.write(jobMaker, numJobs);
+        }
+        System.out.println("Wrote " + numJobs + " jobs to " + args[0]);
+    }
+}
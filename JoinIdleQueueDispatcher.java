@@ -0,0 +1,76 @@
+/*
+  file name:      JoinIdleQueueDispatcher.java
+  Authors:        Vishnu Varadhan
+  last modified:  10/18/2026
+  Class Purpose:  Implements the Join-Idle-Queue (JIQ) strategy: a job goes to an idle server whenever there is
+                  one, and to a random server otherwise. The idle servers are kept in an IdleServerSet that is
+                  updated as server queues empty and fill, so picking a server costs O(1) however large the farm
+                  is. Idle servers are handed out in turn, starting after the last server picked, so the work of a
+                  lightly loaded farm spreads over all of its servers.
+*/
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class JoinIdleQueueDispatcher extends JobDispatcher {
+    private IdleServerSet idleServers;
+    private int cursor; // the search for an idle server starts here
+    private SplitMix64 rand;
+
+    // Constructor: Initializes the JoinIdleQueueDispatcher with a specified number of servers and visualization flag.
+    public JoinIdleQueueDispatcher(int k, boolean showViz) {
+        this(k, showViz, new SplitMix64());
+    }
+
+    // Constructor: Initializes the JoinIdleQueueDispatcher with a seed for its random fallback, so runs can be reproduced.
+    public JoinIdleQueueDispatcher(int k, boolean showViz, long seed) {
+        this(k, showViz, new SplitMix64(seed));
+    }
+
+    private JoinIdleQueueDispatcher(int k, boolean showViz, SplitMix64 rand) {
+        super(k, showViz);
+        this.rand = rand;
+        this.cursor = 0;
+        idleServers = new IdleServerSet(k);
+        for (int i = 0; i < k; i++) {
+            serverUpdated(i);
+        }
+    }
+
+    // Selects the next idle server, or a random server if none is idle.
+    @Override
+    public Server pickServer(Job j) {
+        int idle = idleServers.next(cursor);
+        if (idle < 0) {
+            return serverList.get(rand.nextInt(serverList.size()));
+        }
+        cursor = idle + 1 < serverList.size() ? idle + 1 : 0;
+        return serverList.get(idle);
+    }
+
+    // Keeps the set of idle servers up to date.
+    @Override
+    protected void serverUpdated(int serverIndex) {
+        if (getQueueLength(serverIndex) == 0) {
+            idleServers.add(serverIndex);
+        } else {
+            idleServers.remove(serverIndex);
+        }
+    }
+
+    // Saves where the search for an idle server starts and the random stream of the fallback.
+    @Override
+    protected void writePolicyState(DataOutputStream out) throws IOException {
+        out.writeInt(cursor);
+        out.writeLong(rand.getSeed());
+        out.writeLong(rand.getGamma());
+    }
+
+    // Restores the state written by writePolicyState.
+    @Override
+    protected void readPolicyState(DataInputStream in) throws IOException {
+        cursor = in.readInt();
+        rand = new SplitMix64(in.readLong(), in.readLong());
+    }
+}
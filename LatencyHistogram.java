@@ -0,0 +1,285 @@
+/*
+file name:      LatencyHistogram.java
+Authors:        Vishnu Varadhan
+last modified:  10/18/2026
+Class Purpose:  Log-bucketed histogram of waiting times, in the style of HdrHistogram. Every power of two is split
+                into 64 equal sub-buckets, so any recorded value is known to within 1/64 (about 1.6%) of itself
+                from 2^-10 up to 2^40 time units. Recording only computes a bucket index from the bits of the
+                double and increments a counter. The 64 counters of a power of two are allocated the first time a
+                value lands in it, so a server only pays for the range its waiting times actually cover, and in
+                steady state recording allocates nothing.
+                Histograms from different servers merge into a farm-wide one, answer percentile queries, and
+                serialize to a compact byte form that only stores the non-empty buckets.
+*/
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MIN_EXPONENT = -10;
+    private static final int MAX_EXPONENT = 40;
+    private static final int NUM_ROWS = MAX_EXPONENT - MIN_EXPONENT;
+    private static final int NUM_BUCKETS = NUM_ROWS * SUB_BUCKETS;
+    private static final int SERIAL_MAGIC = 0x4c48_0001; // "LH", format version 1
+
+    private long[][] counts; // one row of sub-bucket counters per power of two, allocated when first needed
+    private long totalCount;
+    private double sum;
+    private double min;
+    private double max;
+
+    // Constructor: Creates an empty histogram.
+    public LatencyHistogram() {
+        counts = new long[NUM_ROWS][];
+        reset();
+    }
+
+    // Records one value. Values below 2^-10 count in the lowest bucket and values above 2^40 in the highest,
+    // but the exact minimum, maximum and mean are always kept.
+    public void record(double value) {
+        int bucket = bucketIndex(value);
+        long[] row = counts[bucket >> SUB_BUCKET_BITS];
+        if (row == null) {
+            row = counts[bucket >> SUB_BUCKET_BITS] = new long[SUB_BUCKETS];
+        }
+        row[bucket & (SUB_BUCKETS - 1)]++;
+        totalCount++;
+        sum += value;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    // Adds every value recorded in another histogram to this one.
+    public void merge(LatencyHistogram other) {
+        if (other.totalCount == 0) {
+            return;
+        }
+        for (int r = 0; r < NUM_ROWS; r++) {
+            long[] otherRow = other.counts[r];
+            if (otherRow == null) {
+                continue;
+            }
+            if (counts[r] == null) {
+                counts[r] = new long[SUB_BUCKETS];
+            }
+            for (int i = 0; i < SUB_BUCKETS; i++) {
+                counts[r][i] += otherRow[i];
+            }
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    // Removes every recorded value.
+    public void reset() {
+        for (long[] row : counts) {
+            if (row != null) {
+                Arrays.fill(row, 0);
+            }
+        }
+        totalCount = 0;
+        sum = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    // Returns the number of recorded values.
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    // Returns the mean of the recorded values, or NaN if there are none.
+    public double getMean() {
+        return totalCount == 0 ? Double.NaN : sum / totalCount;
+    }
+
+    // Returns the smallest recorded value, or NaN if there are none.
+    public double getMin() {
+        return totalCount == 0 ? Double.NaN : min;
+    }
+
+    // Returns the largest recorded value, or NaN if there are none.
+    public double getMax() {
+        return totalCount == 0 ? Double.NaN : max;
+    }
+
+    // Returns the value below which the given percentage (0 to 100) of the recorded values fall, to within the
+    // bucket resolution, or NaN if there are none. The answer is clamped to the exact minimum and maximum.
+    public double getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return Double.NaN;
+        }
+        double p = Math.min(Math.max(percentile, 0.), 100.);
+        long rank = Math.max(1, (long) Math.ceil(p / 100. * totalCount));
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            seen += count(i);
+            if (seen >= rank) {
+                double midpoint = (bucketLowerBound(i) + bucketLowerBound(i + 1)) / 2;
+                return Math.min(Math.max(midpoint, min), max);
+            }
+        }
+        return max;
+    }
+
+    // Returns the value below which the recorded values add up to the given percentage (0 to 100) of their total,
+    // taking every value as its bucket's midpoint, or NaN if there are none. For job sizes this is the size below
+    // which jobs bring that share of the work. The answer is clamped to the exact minimum and maximum.
+    public double getValueAtWorkPercentile(double percentile) {
+        if (totalCount == 0) {
+            return Double.NaN;
+        }
+        double p = Math.min(Math.max(percentile, 0.), 100.);
+        double total = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            total += count(i) * ((bucketLowerBound(i) + bucketLowerBound(i + 1)) / 2);
+        }
+        double target = p / 100. * total;
+        double seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            long count = count(i);
+            if (count == 0) {
+                continue;
+            }
+            double midpoint = (bucketLowerBound(i) + bucketLowerBound(i + 1)) / 2;
+            seen += count * midpoint;
+            if (seen >= target) {
+                return Math.min(Math.max(midpoint, min), max);
+            }
+        }
+        return max;
+    }
+
+    // Returns the histogram as a compact byte array: a short header, then one (gap, count) pair of
+    // variable-length integers for each non-empty bucket.
+    public byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // Rebuilds a histogram from the output of toByteArray.
+    public static LatencyHistogram fromByteArray(byte[] serialized) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(serialized))) {
+            return readFrom(in);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Not a serialized LatencyHistogram", e);
+        }
+    }
+
+    // Writes the compact form of the histogram to a stream.
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(SERIAL_MAGIC);
+        out.writeLong(totalCount);
+        out.writeDouble(sum);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        int last = -1;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            long count = count(i);
+            if (count != 0) {
+                writeVarLong(out, i - last);
+                writeVarLong(out, count);
+                last = i;
+            }
+        }
+        writeVarLong(out, 0); // a gap of 0 marks the end
+    }
+
+    // Reads a histogram written by writeTo.
+    public static LatencyHistogram readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != SERIAL_MAGIC) {
+            throw new IOException("Not a serialized LatencyHistogram");
+        }
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.totalCount = in.readLong();
+        histogram.sum = in.readDouble();
+        histogram.min = in.readDouble();
+        histogram.max = in.readDouble();
+        long bucket = -1;
+        for (long gap = readVarLong(in); gap != 0; gap = readVarLong(in)) {
+            bucket += gap;
+            if (bucket >= NUM_BUCKETS) {
+                throw new IOException("Corrupt LatencyHistogram: bucket " + bucket);
+            }
+            int row = (int) bucket >> SUB_BUCKET_BITS;
+            if (histogram.counts[row] == null) {
+                histogram.counts[row] = new long[SUB_BUCKETS];
+            }
+            histogram.counts[row][(int) bucket & (SUB_BUCKETS - 1)] = readVarLong(in);
+        }
+        return histogram;
+    }
+
+    // Returns a one-line summary of the distribution.
+    public String toString() {
+        return "count: " + totalCount + ", mean: " + getMean() + ", p50: " + getValueAtPercentile(50)
+                + ", p90: " + getValueAtPercentile(90) + ", p99: " + getValueAtPercentile(99)
+                + ", p99.9: " + getValueAtPercentile(99.9) + ", max: " + getMax();
+    }
+
+    private long count(int bucket) {
+        long[] row = counts[bucket >> SUB_BUCKET_BITS];
+        return row == null ? 0 : row[bucket & (SUB_BUCKETS - 1)];
+    }
+
+    // The bucket of a value: the exponent picks a group of 64 buckets and the top 6 mantissa bits pick one inside it.
+    private static int bucketIndex(double value) {
+        if (!(value >= Double.MIN_NORMAL)) {
+            return 0;
+        }
+        long bits = Double.doubleToRawLongBits(value);
+        int exponent = (int) ((bits >>> 52) & 0x7ff) - 1023;
+        if (exponent < MIN_EXPONENT) {
+            return 0;
+        }
+        if (exponent >= MAX_EXPONENT) {
+            return NUM_BUCKETS - 1;
+        }
+        int subBucket = (int) (bits >>> (52 - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return ((exponent - MIN_EXPONENT) << SUB_BUCKET_BITS) | subBucket;
+    }
+
+    private static double bucketLowerBound(int index) {
+        int exponent = (index >> SUB_BUCKET_BITS) + MIN_EXPONENT;
+        int subBucket = index & (SUB_BUCKETS - 1);
+        return Math.scalb(1.0 + subBucket / (double) SUB_BUCKETS, exponent);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.writeByte((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt LatencyHistogram: variable-length integer too long");
+    }
+}
@@ -4,35 +4,32 @@ Authors:        Vishnu Varadhan
 last modified:  03/24/2024
 Class Purpose:  Implements the LeastWorkDispatcher strategy for dispatching jobs to servers. This class extends
                 the JobDispatcher class, selecting the server with the least amount of remaining work to handle
-                incoming jobs, aiming to balance the workload among servers efficiently.
+                incoming jobs, aiming to balance the workload among servers efficiently. Remaining work is kept
+                in a LoadTree, so picking a server costs O(1) and each queue change costs O(log k).
 */
 
-import java.awt.Graphics; 
-import java.awt.Color;
-import java.util.ArrayList;
-
 public class LeastWorkDispatcher extends JobDispatcher {
+    private LoadTree remainingWork;
 
     // Constructor: Initializes the dispatcher with a specified number of preemptive servers and a visualization flag.
     public LeastWorkDispatcher(int k, boolean showViz) {
         super(k, showViz);
+        remainingWork = new LoadTree(k);
+        for (int i = 0; i < k; i++) {
+            serverUpdated(i);
+        }
     }
 
     // Picks the server with the least amount of remaining work to handle the new job.
+    // Ties go to the first such server in the list.
     @Override
     public Server pickServer(Job j) {
-        Server leastWorkServer = serverList.get(0); 
-        double leastWork = leastWorkServer.remainingWorkInQueue(); 
-
-
-        for (Server server : serverList) {
-            double currentWork = server.remainingWorkInQueue();
-            if (currentWork < leastWork) {
-                leastWorkServer = server; 
-                leastWork = currentWork; 
-            }
-        }
+        return serverList.get(remainingWork.argMin());
+    }
 
-        return leastWorkServer; 
+    // Keeps the server's remaining work in the tree up to date.
+    @Override
+    protected void serverUpdated(int serverIndex) {
+        remainingWork.update(serverIndex, getRemainingWork(serverIndex));
     }
 }
\ No newline at end of file
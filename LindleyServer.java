@@ -0,0 +1,197 @@
+/*
+  file name:      LindleyServer.java
+  Authors:        Vishnu Varadhan
+  last modified:  10/18/2026
+  Class Purpose:  Extends the Server class with a closed-form first-come, first-served server. With FIFO service a
+                  job's completion time is fixed the moment it is added: it starts when both it and the job ahead
+                  of it are there, and finishes its processing time later (the Lindley recursion). addJob computes
+                  that completion time, so advancing time only moves the clock and never touches the queue. The
+                  jobs that have finished by the current time are found by a search of the ring of completion
+                  times, and are retired -- their waiting times recorded -- in a batch the next time a job is added
+                  or the statistics are read. The server makes the same completions at the same times as Server,
+                  so every dispatcher makes the same decisions with either one.
+*/
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LindleyServer extends Server {
+    private DoubleArrayQueue arrivalTimes;
+    private DoubleArrayQueue processingTimesNeeded;
+    private DoubleArrayQueue completionTimes;  // increasing, since jobs finish in the order they were added
+    private DoubleArrayQueue cumulativeNeeded; // processing time needed by this job and every job before it in the ring
+    private double lastCompletion;             // completion time of the last job added
+    private double cumulativeTotal;
+
+    // Constructor: Initializes a LindleyServer object by calling the parent Server constructor.
+    public LindleyServer() {
+        super();
+        arrivalTimes = new DoubleArrayQueue();
+        processingTimesNeeded = new DoubleArrayQueue();
+        completionTimes = new DoubleArrayQueue();
+        cumulativeNeeded = new DoubleArrayQueue();
+        lastCompletion = 0;
+        cumulativeTotal = 0;
+    }
+
+    // Adds a job to the back of the queue and computes when it will finish.
+    @Override
+    public void addJob(double arrivalTime, double processingTimeNeeded) {
+        addJob(arrivalTime, processingTimeNeeded, 0.);
+    }
+
+    // Adds a job that has already received some processing, so it only needs the rest.
+    @Override
+    public void addJob(double arrivalTime, double processingTimeNeeded, double processingTimeSpent) {
+        retireFinishedJobs();
+        double start = Math.max(time, lastCompletion);
+        lastCompletion = start + (processingTimeNeeded - processingTimeSpent);
+        arrivalTimes.offer(arrivalTime);
+        processingTimesNeeded.offer(processingTimeNeeded);
+        completionTimes.offer(lastCompletion);
+        cumulativeTotal += processingTimeNeeded;
+        cumulativeNeeded.offer(cumulativeTotal);
+        remainingTime += processingTimeNeeded;
+        numJobs++;
+    }
+
+    // Advances the clock. The jobs that finish along the way were already accounted for when they were added.
+    @Override
+    public void processTo(double processTime) {
+        if (processTime > time) {
+            time = processTime;
+        }
+    }
+
+    // Returns the time at which the job currently being processed will finish, or positive infinity if the server is idle.
+    @Override
+    public double nextCompletionTime() {
+        int firstPending = firstPending();
+        return firstPending == completionTimes.size() ? Double.POSITIVE_INFINITY : completionTimes.get(firstPending);
+    }
+
+    // Returns the total processing time needed by the jobs that have not finished yet.
+    @Override
+    public double remainingWorkInQueue() {
+        int firstPending = firstPending();
+        if (firstPending == 0) {
+            return remainingTime;
+        }
+        double finishedWork = cumulativeNeeded.get(firstPending - 1) - (cumulativeNeeded.get(0) - processingTimesNeeded.get(0));
+        return remainingTime - finishedWork;
+    }
+
+    // Returns the number of jobs that have not finished yet.
+    @Override
+    public int size() {
+        return completionTimes.size() - firstPending();
+    }
+
+    // Returns the total waiting time for all jobs finished by this server.
+    @Override
+    public double getTotalWaitingTime() {
+        retireFinishedJobs();
+        return totalWaitingTime;
+    }
+
+    // Returns the distribution of waiting times of the jobs this server has finished.
+    @Override
+    public LatencyHistogram getWaitingTimeHistogram() {
+        retireFinishedJobs();
+        return waitingTimes;
+    }
+
+    // Returns the number of jobs this server has finished.
+    @Override
+    public int getNumJobsProcessed() {
+        retireFinishedJobs();
+        return numJobsProcessed;
+    }
+
+    // Returns copies of the jobs that have not finished yet, in the order they arrived, with the processing they have received.
+    @Override
+    public List<Job> getQueuedJobs() {
+        retireFinishedJobs();
+        List<Job> queued = new ArrayList<>(completionTimes.size());
+        double previousCompletion = time;
+        for (int i = 0; i < completionTimes.size(); i++) {
+            double needed = processingTimesNeeded.get(i);
+            double remaining = completionTimes.get(i) - Math.max(time, previousCompletion);
+            queued.add(new Job(arrivalTimes.get(i), needed, needed - remaining));
+            previousCompletion = completionTimes.get(i);
+        }
+        return queued;
+    }
+
+    // Removes every job from the queue without counting any of them as finished.
+    @Override
+    protected void clearQueue() {
+        arrivalTimes.clear();
+        processingTimesNeeded.clear();
+        completionTimes.clear();
+        cumulativeNeeded.clear();
+        lastCompletion = 0;
+        cumulativeTotal = 0;
+    }
+
+    // Adds the waiting times of the jobs another server has finished to this server's statistics.
+    @Override
+    public void mergeStatistics(Server other) {
+        retireFinishedJobs();
+        if (other instanceof LindleyServer) {
+            ((LindleyServer) other).retireFinishedJobs();
+        }
+        super.mergeStatistics(other);
+    }
+
+    // Writes the server's clock, statistics and queued jobs, after recording the jobs that have finished.
+    @Override
+    public void writeTo(DataOutputStream out) throws IOException {
+        retireFinishedJobs();
+        super.writeTo(out);
+    }
+
+    // Records the waiting times of the jobs that have finished by the current time and drops them from the rings.
+    private void retireFinishedJobs() {
+        while (!completionTimes.isEmpty() && completionTimes.peek() <= time) {
+            double waitingTime = completionTimes.poll() - arrivalTimes.poll();
+            totalWaitingTime += waitingTime;
+            waitingTimes.record(waitingTime);
+            numJobs--;
+            numJobsProcessed++;
+            remainingTime -= processingTimesNeeded.poll();
+            cumulativeNeeded.poll();
+        }
+        if (completionTimes.isEmpty()) {
+            cumulativeTotal = 0;
+        }
+    }
+
+    // Returns the position in the rings of the first job that has not finished by the current time. The finished jobs
+    // are all at the front, and usually only a few of them, so the search gallops from the front before bisecting.
+    private int firstPending() {
+        int size = completionTimes.size();
+        int low = 0;   // every job before low has finished
+        int high = 1;  // candidate end of the finished jobs
+        while (high <= size && completionTimes.get(high - 1) <= time) {
+            low = high;
+            high = Math.min(2 * high, size + 1);
+            if (low == size) {
+                return size;
+            }
+        }
+        high = Math.min(high, size);
+        // The answer is in [low, high]
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (completionTimes.get(mid) <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+file name:      LoadTree.java
+Authors:        Vishnu Varadhan
+last modified:  10/18/2026
+Class Purpose:  Tournament tree over one load key per server, used by the dispatchers that pick the server with
+                the smallest key (shortest queue, least work, and the scored dispatchers). Each internal node holds
+                the winner of its two children, so the overall minimum is read from the root in O(1) and changing
+                one server's key replays only the matches on its path to the root, in O(log k). Ties go to the
+                lower server index, which is exactly the choice a left-to-right linear scan with a strict
+                less-than comparison makes.
+*/
+
+public class LoadTree {
+    private final int numServers;
+    private final int firstLeaf;   // index of the leaf for server 0; leaves fill the bottom level of the tree
+    private final double[] keys;   // current key of each server
+    private final int[] winners;   // winning server of each node, or -1 for an empty padding leaf
+
+    // Constructor: Creates a tree over numServers servers, all with a key of 0.
+    public LoadTree(int numServers) {
+        if (numServers <= 0) {
+            throw new IllegalArgumentException("A load tree needs at least one server: " + numServers);
+        }
+        this.numServers = numServers;
+        int leaves = Integer.highestOneBit(Math.max(numServers, 2) - 1) << 1;
+        this.firstLeaf = leaves;
+        this.keys = new double[numServers];
+        this.winners = new int[2 * leaves];
+        for (int i = 0; i < leaves; i++) {
+            winners[leaves + i] = i < numServers ? i : -1;
+        }
+        for (int node = leaves - 1; node >= 1; node--) {
+            winners[node] = winner(winners[2 * node], winners[2 * node + 1]);
+        }
+    }
+
+    // Returns the number of servers in the tree.
+    public int size() {
+        return numServers;
+    }
+
+    // Returns the current key of a server.
+    public double getKey(int server) {
+        return keys[server];
+    }
+
+    // Sets the key of a server and replays the matches on its path to the root.
+    public void update(int server, double key) {
+        if (keys[server] == key) {
+            return;
+        }
+        keys[server] = key;
+        for (int node = (firstLeaf + server) >>> 1; node >= 1; node >>>= 1) {
+            int best = winner(winners[2 * node], winners[2 * node + 1]);
+            if (winners[node] == best && best != server) {
+                // The rest of the path was decided by other servers and cannot change
+                break;
+            }
+            winners[node] = best;
+        }
+    }
+
+    // Returns the server with the smallest key, the lowest index among equal keys.
+    public int argMin() {
+        return winners[1];
+    }
+
+    // Returns the smallest key.
+    public double minKey() {
+        return keys[winners[1]];
+    }
+
+    private int winner(int a, int b) {
+        if (a < 0) {
+            return b;
+        }
+        if (b < 0) {
+            return a;
+        }
+        return keys[b] < keys[a] ? b : a;
+    }
+}
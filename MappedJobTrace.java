@@ -0,0 +1,144 @@
+/*
+file name:      MappedJobTrace.java
+Authors:        Vishnu Varadhan
+last modified:  10/18/2026
+Class Purpose:  Replays a binary trace written by JobTraceWriter. The file is memory-mapped, so each job is read
+                with two absolute getDouble calls straight from the page cache: nothing is parsed or copied, and
+                the operating system pages the trace in as the replay moves through it. A single mapping is limited
+                to 2 GB, so traces of any length are mapped one window of at most 1 GB at a time; a window always
+                holds whole records and the next one is mapped when the replay reaches its end.
+                The trace is a JobSource: JobDispatcher.handleJobs replays it in place of a JobMaker, and
+                getNextJob returns the same Job objects the recorded JobMaker did.
+*/
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class MappedJobTrace implements JobSource, Closeable {
+    private static final long WINDOW_RECORDS = (1L << 30) / JobTraceWriter.RECORD_BYTES;
+
+    private final FileChannel channel;
+    private final long numJobs;
+    private MappedByteBuffer window;
+    private long windowStart;   // index of the first job in the current window
+    private long windowEnd;     // index one past the last job in the current window
+    private long next;          // index of the next job to hand out
+
+    // Constructor: Opens a trace file and checks its header. Nothing is mapped until the first job is read.
+    public MappedJobTrace(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(JobTraceWriter.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    break;
+                }
+            }
+            header.flip();
+            if (header.remaining() < JobTraceWriter.HEADER_BYTES || header.getInt() != JobTraceWriter.MAGIC) {
+                throw new IOException("Not a job trace: " + file);
+            }
+            int version = header.getInt();
+            if (version != JobTraceWriter.VERSION) {
+                throw new IOException("Unsupported job trace version " + version + ": " + file);
+            }
+            numJobs = header.getLong();
+            long expectedBytes = JobTraceWriter.HEADER_BYTES + numJobs * JobTraceWriter.RECORD_BYTES;
+            if (numJobs < 0 || channel.size() < expectedBytes) {
+                throw new IOException("Truncated job trace: " + file + " holds " + channel.size()
+                        + " bytes, its header promises " + expectedBytes);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        windowStart = 0;
+        windowEnd = 0;
+        next = 0;
+    }
+
+    // Returns the number of jobs in the trace.
+    public long size() {
+        return numJobs;
+    }
+
+    // Returns the index of the next job to be handed out.
+    public long position() {
+        return next;
+    }
+
+    // Moves to the job with the given index, so the replay continues from there.
+    public void seek(long index) {
+        if (index < 0 || index > numJobs) {
+            throw new IndexOutOfBoundsException("Job " + index + " of a trace of " + numJobs);
+        }
+        next = index;
+    }
+
+    // Returns the arrival time of the i-th job.
+    public double getArrivalTime(long i) {
+        return window(i).getDouble(offset(i));
+    }
+
+    // Returns the processing time needed by the i-th job.
+    public double getProcessingTimeNeeded(long i) {
+        return window(i).getDouble(offset(i) + Double.BYTES);
+    }
+
+    public boolean hasNextJob() {
+        return next < numJobs;
+    }
+
+    public Job getNextJob() {
+        Job job = new Job(getArrivalTime(next), getProcessingTimeNeeded(next));
+        next++;
+        return job;
+    }
+
+    // Hands the next job to the dispatcher straight from the mapped file.
+    public void dispatchNextJob(JobDispatcher dispatcher) {
+        MappedByteBuffer records = window(next);
+        int offset = offset(next);
+        next++;
+        dispatcher.handleJob(records.getDouble(offset), records.getDouble(offset + Double.BYTES));
+    }
+
+    // Closes the file. The mapped windows are released when they are garbage collected.
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    // Returns the window holding job i, mapping a new one if i lies outside the current window.
+    private MappedByteBuffer window(long i) {
+        if (i < windowStart || i >= windowEnd) {
+            if (i < 0 || i >= numJobs) {
+                throw new IndexOutOfBoundsException("Job " + i + " of a trace of " + numJobs);
+            }
+            long start = i - i % WINDOW_RECORDS;
+            long end = Math.min(start + WINDOW_RECORDS, numJobs);
+            try {
+                window = channel.map(FileChannel.MapMode.READ_ONLY,
+                        JobTraceWriter.HEADER_BYTES + start * JobTraceWriter.RECORD_BYTES,
+                        (end - start) * JobTraceWriter.RECORD_BYTES);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            window.order(ByteOrder.LITTLE_ENDIAN);
+            windowStart = start;
+            windowEnd = end;
+        }
+        return window;
+    }
+
+    private int offset(long i) {
+        return (int) (i - windowStart) * JobTraceWriter.RECORD_BYTES;
+    }
+}
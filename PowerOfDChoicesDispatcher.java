@@ -0,0 +1,92 @@
+/*
+  file name:      PowerOfDChoicesDispatcher.java
+  Authors:        Vishnu Varadhan
+  last modified:  10/18/2026
+  Class Purpose:  Implements the power-of-d-choices strategy, JSQ(d): for each job, d distinct servers are sampled
+                  at random and the job goes to the one with the shortest queue, or with the least remaining work,
+                  among them. Picking a server looks at only d servers no matter how large the farm is, and keeps no
+                  index over the servers, yet already with d = 2 the queues come out far more even than with purely
+                  random dispatching. Ties go to the server sampled first.
+*/
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class PowerOfDChoicesDispatcher extends JobDispatcher {
+    private int d;
+    private boolean leastWork;
+    private SplitMix64 rand;
+    private int[] permutation; // the first d entries after a pick are the servers sampled for it
+
+    // Constructor: Initializes the dispatcher with a specified number of servers and visualization flag,
+    // comparing the queue lengths of two sampled servers.
+    public PowerOfDChoicesDispatcher(int k, boolean showViz) {
+        this(k, showViz, 2, false, new SplitMix64());
+    }
+
+    // Constructor: Initializes the dispatcher to sample d servers and compare their queue lengths, or their remaining
+    // work if leastWork is true, with a seed so the same jobs are always sent to the same servers.
+    public PowerOfDChoicesDispatcher(int k, boolean showViz, int d, boolean leastWork, long seed) {
+        this(k, showViz, d, leastWork, new SplitMix64(seed));
+    }
+
+    private PowerOfDChoicesDispatcher(int k, boolean showViz, int d, boolean leastWork, SplitMix64 rand) {
+        super(k, showViz);
+        if (d < 1) {
+            throw new IllegalArgumentException("At least one server must be sampled: " + d);
+        }
+        this.d = Math.min(d, k);
+        this.leastWork = leastWork;
+        this.rand = rand;
+        this.permutation = new int[k];
+        for (int i = 0; i < k; i++) {
+            permutation[i] = i;
+        }
+    }
+
+    // Samples d distinct servers and selects the one with the shortest queue or least remaining work among them.
+    // The samples are the first d steps of a Fisher-Yates shuffle of the server indices, which costs O(d).
+    @Override
+    public Server pickServer(Job j) {
+        int k = permutation.length;
+        int best = -1;
+        double bestLoad = 0;
+        for (int i = 0; i < d; i++) {
+            int swap = i + rand.nextInt(k - i);
+            int sampled = permutation[swap];
+            permutation[swap] = permutation[i];
+            permutation[i] = sampled;
+
+            double load = leastWork ? getRemainingWork(sampled) : getQueueLength(sampled);
+            if (best < 0 || load < bestLoad) {
+                best = sampled;
+                bestLoad = load;
+            }
+        }
+        return serverList.get(best);
+    }
+
+    // Saves the number of choices, the load measure, the random stream and the shuffle state.
+    @Override
+    protected void writePolicyState(DataOutputStream out) throws IOException {
+        out.writeInt(d);
+        out.writeBoolean(leastWork);
+        out.writeLong(rand.getSeed());
+        out.writeLong(rand.getGamma());
+        for (int server : permutation) {
+            out.writeInt(server);
+        }
+    }
+
+    // Restores the state written by writePolicyState.
+    @Override
+    protected void readPolicyState(DataInputStream in) throws IOException {
+        d = in.readInt();
+        leastWork = in.readBoolean();
+        rand = new SplitMix64(in.readLong(), in.readLong());
+        for (int i = 0; i < permutation.length; i++) {
+            permutation[i] = in.readInt();
+        }
+    }
+}
@@ -6,49 +6,58 @@
                   with the least remaining processing time. This approach aims to optimize job
                   processing by dynamically selecting the next job to process based on its
                   remaining work, potentially reducing the average waiting time for all jobs.
+                  Waiting jobs are kept in a JobHeap, so picking and retiring a job costs O(log n).
 */
 
-import java.awt.Graphics; 
-import java.awt.Color;
-import java.awt.Toolkit;
-import java.util.Comparator;
-import java.awt.Font;
+import java.util.List;
 
 public class PreemptiveServer extends Server {
+    private JobHeap readyJobs;
 
     // Constructor: Initializes a PreemptiveServer object by calling the parent Server constructor.
     public PreemptiveServer() {
         super();
+        readyJobs = new JobHeap();
+    }
+
+    // Adds a job to the ready queue, keyed on its processing time.
+    @Override
+    public void addJob(double arrivalTime, double processingTimeNeeded) {
+        readyJobs.add(arrivalTime, processingTimeNeeded);
+        remainingTime += processingTimeNeeded;
+        numJobs++;
+    }
+
+    // Adds a job that has already received some processing, keyed on the processing time it still needs.
+    @Override
+    public void addJob(double arrivalTime, double processingTimeNeeded, double processingTimeSpent) {
+        readyJobs.add(arrivalTime, processingTimeNeeded, processingTimeNeeded - processingTimeSpent);
+        remainingTime += processingTimeNeeded;
+        numJobs++;
     }
 
     // Processes jobs up to a specified process time, prioritizing jobs with the least remaining processing time.
     public void processTo(double processTime) {
-        double timeLeft = processTime - time; 
-        LinkedList<Job> jobsLinkedList = (LinkedList<Job>) jobs;
+        double timeLeft = processTime - time;
 
         while (numJobs > 0 && timeLeft > 0) {
-            Job currentJob = jobsLinkedList.findMin(new Comparator<Job>() {
-                @Override
-                public int compare(Job j1, Job j2) {
-                    return Double.compare(j1.getProcessingTimeRemaining(), j2.getProcessingTimeRemaining());
-                }
-            });
-
-            double timeToProcess = Math.min(currentJob.getProcessingTimeRemaining(), timeLeft);
-            currentJob.process(timeToProcess, time);
-            timeLeft -= timeToProcess; 
-
-            if (currentJob.isFinished()) {
-                jobsLinkedList.removeMin(new Comparator<Job>() {
-                    @Override
-                    public int compare(Job j1, Job j2) {
-                        return Double.compare(j1.getProcessingTimeRemaining(), j2.getProcessingTimeRemaining());
-                    }
-                });
-                totalWaitingTime += currentJob.timeInQueue();
+            processIterations++;
+            double currentRemaining = readyJobs.peekKey();
+
+            double timeToProcess = Math.min(currentRemaining, timeLeft);
+            currentRemaining -= timeToProcess;
+            timeLeft -= timeToProcess;
+
+            if (currentRemaining <= 0) {
+                double waitingTime = (time + timeToProcess) - readyJobs.peekArrivalTime();
+                totalWaitingTime += waitingTime;
+                waitingTimes.record(waitingTime);
                 numJobs--;
                 numJobsProcessed++;
-                remainingTime -= currentJob.getProcessingTimeNeeded();
+                remainingTime -= readyJobs.peekProcessingTimeNeeded();
+                readyJobs.poll();
+            } else {
+                readyJobs.decreaseMinKey(currentRemaining);
             }
 
             time += timeToProcess;
@@ -58,4 +67,22 @@ public class PreemptiveServer extends Server {
             time = processTime;
         }
     }
-}
\ No newline at end of file
+
+    // Returns copies of the waiting jobs in the order they arrived at this server.
+    @Override
+    public List<Job> getQueuedJobs() {
+        return readyJobs.toList();
+    }
+
+    // Removes every job from the ready queue.
+    @Override
+    protected void clearQueue() {
+        readyJobs.clear();
+    }
+
+    // Returns the time at which the job with the least remaining processing time will finish if no new job arrives.
+    @Override
+    public double nextCompletionTime() {
+        return time + readyJobs.peekKey();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+  file name:      ProcessorSharingServer.java
+  Authors:        Vishnu Varadhan
+  last modified:  10/18/2026
+  Class Purpose:  Extends the Server class to implement processor sharing: every job at the server is processed at
+                  the same time, each at a rate of 1/n when n jobs are present, like the threads of a web server
+                  sharing its CPU. Instead of updating every job as time advances, the server keeps a virtual clock
+                  that counts the service each present job has received since the server last went idle. A job
+                  that arrives needing p units of processing finishes when the virtual clock reaches its arrival
+                  reading plus p, so that virtual finish time never changes after the job arrives. The jobs are
+                  kept in a JobHeap keyed on it, and advancing time costs O(log n) per completion and O(1)
+                  otherwise, no matter how many jobs share the server.
+*/
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProcessorSharingServer extends Server {
+    private JobHeap activeJobs; // keyed on virtual finish time
+    private double virtualTime;  // service received by each present job since the server was last idle
+
+    // Constructor: Initializes a ProcessorSharingServer object by calling the parent Server constructor.
+    public ProcessorSharingServer() {
+        super();
+        activeJobs = new JobHeap();
+        virtualTime = 0;
+    }
+
+    // Adds a job that shares the server from now on. It finishes once every present job has received its processing time.
+    @Override
+    public void addJob(double arrivalTime, double processingTimeNeeded) {
+        activeJobs.add(arrivalTime, processingTimeNeeded, virtualTime + processingTimeNeeded);
+        remainingTime += processingTimeNeeded;
+        numJobs++;
+    }
+
+    // Adds a job that has already received some processing, so it only needs the rest.
+    @Override
+    public void addJob(double arrivalTime, double processingTimeNeeded, double processingTimeSpent) {
+        activeJobs.add(arrivalTime, processingTimeNeeded, virtualTime + processingTimeNeeded - processingTimeSpent);
+        remainingTime += processingTimeNeeded;
+        numJobs++;
+    }
+
+    // Processes every present job up to a specified process time. While n jobs are present, the virtual clock
+    // advances 1/n as fast as real time, so the next job finishes n times its remaining virtual time from now.
+    @Override
+    public void processTo(double processTime) {
+        if (processTime <= time) {
+            return;
+        }
+        while (numJobs > 0) {
+            processIterations++;
+            double finishTime = time + (activeJobs.peekKey() - virtualTime) * numJobs;
+            if (finishTime > processTime) {
+                virtualTime += (processTime - time) / numJobs;
+                break;
+            }
+            time = finishTime;
+            virtualTime = activeJobs.peekKey();
+            double waitingTime = time - activeJobs.peekArrivalTime();
+            totalWaitingTime += waitingTime;
+            waitingTimes.record(waitingTime);
+            numJobs--;
+            numJobsProcessed++;
+            remainingTime -= activeJobs.peekProcessingTimeNeeded();
+            activeJobs.poll();
+            if (numJobs == 0) {
+                // Start the virtual clock over, so it never grows large enough to lose precision
+                virtualTime = 0;
+            }
+        }
+
+        if (processTime > time) {
+            time = processTime;
+        }
+    }
+
+    // Returns the time at which the first present job will finish if no new job arrives.
+    @Override
+    public double nextCompletionTime() {
+        if (numJobs == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return time + (activeJobs.peekKey() - virtualTime) * numJobs;
+    }
+
+    // Returns copies of the present jobs in the order they arrived at this server, with the processing they have received.
+    @Override
+    public List<Job> getQueuedJobs() {
+        List<Job> queued = new ArrayList<>(numJobs);
+        // The heap reports a job's key as its remaining time, here its virtual finish time
+        for (Job job : activeJobs.toList()) {
+            double remaining = job.getProcessingTimeRemaining() - virtualTime;
+            queued.add(new Job(job.getArrivalTime(), job.getProcessingTimeNeeded(), job.getProcessingTimeNeeded() - remaining));
+        }
+        return queued;
+    }
+
+    // Removes every job from the server.
+    @Override
+    protected void clearQueue() {
+        activeJobs.clear();
+        virtualTime = 0;
+    }
+}
@@ -256,6 +256,135 @@ public class QueueTests {
         }
 
 
+        System.out.println( "LinkedList Queue tests passed, next ArrayQueue tests" );
+
+        // case 14: testing ArrayQueue offer, peek and poll
+        {
+            // setup
+            ArrayQueue<Integer> aq = new ArrayQueue<Integer>();
+            aq.offer( 0 );
+            aq.offer( 1 );
+            aq.offer( 2 );
+            aq.offer( 3 );
+
+            // verify
+            System.out.println(aq + " == {0, 1, 2, 3}");
+
+            // test
+            int counter = 0;
+            while ( aq.peek() != null ) {
+                int val = aq.poll() ;
+                System.out.println(val + " == " + counter);
+                assert val == counter : "Error in ArrayQueue implementation!";
+                counter++;
+            }
+            assert aq.isEmpty() : "Error in ArrayQueue::isEmpty()";
+        }
+
+        // case 15: testing ArrayQueue growth while wrapped around, get() and iterator()
+        {
+            // setup
+            ArrayQueue<Integer> aq = new ArrayQueue<Integer>(4);
+            for ( int i = 0 ; i < 3 ; i ++ ) {
+                aq.offer( -1 );
+            }
+            for ( int i = 0 ; i < 3 ; i ++ ) {
+                aq.poll();
+            }
+            for ( int i = 0 ; i < 10 ; i ++ ) {
+                aq.offer( i );
+            }
+
+            // verify
+            System.out.println(aq.size() + " == 10");
+            System.out.println(aq.get(7) + " == 7");
+
+            // test
+            assert aq.size() == 10 : "Error in ArrayQueue::offer() or ArrayQueue::size()";
+            assert aq.get(7) == 7 : "Error in ArrayQueue::get()";
+            int counter = 0;
+            for ( int val : aq ) {
+                assert val == counter : "Error in ArrayQueue::iterator()";
+                counter++;
+            }
+            assert counter == 10 : "Error in ArrayQueue::iterator()";
+        }
+
+        // case 16: testing ArrayQueue removeLast() and peekLast()
+        {
+            // setup
+            ArrayQueue<Integer> aq = new ArrayQueue<Integer>();
+            for ( int i = 0 ; i < 5 ; i ++ ) {
+                aq.offer( i );
+            }
+            int last = aq.removeLast();
+
+            // verify
+            System.out.println(last + " == 4");
+            System.out.println(aq.peekLast() + " == 3");
+
+            // test
+            assert last == 4 : "Error in ArrayQueue::removeLast()";
+            assert aq.peekLast() == 3 : "Error in ArrayQueue::peekLast()";
+            assert aq.size() == 4 : "Error in ArrayQueue::removeLast()";
+        }
+
+        // case 17: testing ArrayQueue for constant offer and poll operations
+        {
+            // setup
+            ArrayQueue<Integer> aq = new ArrayQueue<Integer>();
+            for ( int i = 0 ; i < 1000000 ; i ++ ) {
+                aq.offer( i );
+            }
+
+            // test
+            int counter = 0;
+            while ( aq.peek() != null ) {
+                int val = aq.poll() ;
+                assert val == counter : "Error in ArrayQueue implementation!";
+                counter++;
+            }
+        }
+
+        // case 18: testing DoubleArrayQueue offer, peek, poll, get and set
+        {
+            // setup
+            DoubleArrayQueue dq = new DoubleArrayQueue(2);
+            for ( int i = 0 ; i < 5 ; i ++ ) {
+                dq.offer( i * 0.5 );
+            }
+            dq.set( 2, 7.0 );
+
+            // verify
+            System.out.println(dq + " == {0.0, 0.5, 7.0, 1.5, 2.0}");
+
+            // test
+            assert dq.size() == 5 : "Error in DoubleArrayQueue::offer() or DoubleArrayQueue::size()";
+            assert dq.get(2) == 7.0 : "Error in DoubleArrayQueue::set() or DoubleArrayQueue::get()";
+            assert dq.removeLast() == 2.0 : "Error in DoubleArrayQueue::removeLast()";
+            assert dq.poll() == 0.0 : "Error in DoubleArrayQueue::poll()";
+            assert dq.peek() == 0.5 : "Error in DoubleArrayQueue::peek()";
+            dq.clear();
+            assert Double.isNaN( dq.peek() ) : "Error in DoubleArrayQueue::peek() on an empty queue";
+        }
+
+        // case 19: testing DoubleArrayQueue for constant offer and poll operations
+        {
+            // setup
+            DoubleArrayQueue dq = new DoubleArrayQueue();
+            for ( int i = 0 ; i < 1000000 ; i ++ ) {
+                dq.offer( i );
+            }
+
+            // test
+            int counter = 0;
+            while ( !dq.isEmpty() ) {
+                double val = dq.poll() ;
+                assert val == counter : "Error in DoubleArrayQueue implementation!";
+                counter++;
+            }
+        }
+
         System.out.println("Done testing Queue!");
     }
 
@@ -8,14 +8,23 @@
                   random job assignment on the overall efficiency and average waiting time in a server farm simulation.
 */
 
-import java.util.Random;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 
 public class RandomDispatcher extends JobDispatcher {
-    private final Random rand = new Random(); 
+    private SplitMix64 rand; 
 
     // Constructor: Initializes the RandomDispatcher with a specified number of servers and visualization flag.
     public RandomDispatcher(int k, boolean showViz) {
         super(k, showViz);
+        rand = new SplitMix64();
+    }
+
+    // Constructor: Initializes the RandomDispatcher with a seed, so the same jobs are always sent to the same servers.
+    public RandomDispatcher(int k, boolean showViz, long seed) {
+        super(k, showViz);
+        rand = new SplitMix64(seed);
     }
     
     // Overrides the pickServer method to randomly select and return a server for the incoming job.
@@ -24,4 +33,17 @@ public class RandomDispatcher extends JobDispatcher {
        
         return serverList.get(rand.nextInt(serverList.size()));
     }
+
+    // Saves the random stream, so a restored run makes the same choices.
+    @Override
+    protected void writePolicyState(DataOutputStream out) throws IOException {
+        out.writeLong(rand.getSeed());
+        out.writeLong(rand.getGamma());
+    }
+
+    // Restores the random stream.
+    @Override
+    protected void readPolicyState(DataInputStream in) throws IOException {
+        rand = new SplitMix64(in.readLong(), in.readLong());
+    }
 }
\ No newline at end of file
@@ -8,6 +8,10 @@
                   a bottleneck due to an uneven job distribution.
 */
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 public class RoundRobinDispatcher extends JobDispatcher {
     private int serverSelect; 
 
@@ -24,4 +28,16 @@ public class RoundRobinDispatcher extends JobDispatcher {
         serverSelect = (serverSelect + 1) % serverList.size(); 
         return server;
     }
+
+    // Saves which server is next in line.
+    @Override
+    protected void writePolicyState(DataOutputStream out) throws IOException {
+        out.writeInt(serverSelect);
+    }
+
+    // Restores which server is next in line.
+    @Override
+    protected void readPolicyState(DataInputStream in) throws IOException {
+        serverSelect = in.readInt();
+    }
 }
\ No newline at end of file
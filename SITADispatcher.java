@@ -0,0 +1,212 @@
+/*
+  file name:      SITADispatcher.java
+  Authors:        Vishnu Varadhan
+  last modified:  10/18/2026
+  Class Purpose:  Implements size-interval task assignment (SITA): the servers are split into bands of consecutive
+                  servers, every band serves the jobs whose processing time falls in its own size interval, and a
+                  job goes to the server with the least remaining work in its band. Short jobs then never queue
+                  behind long ones, which is where a heavy-tailed workload loses most of its waiting time.
+
+                  The cutoffs between the intervals give every band a share of the work equal to its share of the
+                  servers (SITA-E). They are work percentiles of the job sizes dispatched so far, kept in a
+                  LatencyHistogram, so they follow the workload without a size distribution being assumed. Every
+                  rebalance interval the histogram of the last interval is folded into the history and the
+                  cutoffs are recomputed from it; once the history covers HISTORY_INTERVALS intervals it is
+                  restarted from the last one, so a change in the workload is picked up within that many intervals.
+                  Jobs already queued stay where they are, so a rebalance only costs a pass over the histogram
+                  buckets, spread over the interval's jobs, and dispatch never waits for it. Until the first
+                  rebalance a job goes to the server with the least remaining work in the whole farm.
+
+                  Each band keeps its servers' remaining work in a LoadTree, so picking a server costs O(number of
+                  bands) to find the band and O(1) to pick in it, and each queue change costs O(log k).
+
+                  SITA pays off on small farms with heavy-tailed sizes; with many servers per band, least work over
+                  the whole farm rarely has every server busy with a long job, and usually does better.
+*/
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class SITADispatcher extends JobDispatcher {
+    private static final int HISTORY_INTERVALS = 16;
+
+    private int numBands;
+    private int[] bandStart;              // first server of each band, with bandStart[numBands] = k
+    private int[] bandOf;                 // band of each server
+    private LoadTree[] bands;             // remaining work of the servers of each band
+    private double[] cutoffs;             // upper size limit of every band but the last, empty until the first rebalance
+    private int rebalanceInterval;
+    private int nextRebalance;            // number of jobs handled at which the cutoffs are recomputed
+    private boolean balanced;             // whether the cutoffs have been computed
+    private LatencyHistogram recentSizes; // sizes dispatched since the last rebalance
+    private LatencyHistogram history;     // sizes the cutoffs are computed from
+
+    // Constructor: Initializes the dispatcher with the default number of bands for k servers.
+    public SITADispatcher(int k, boolean showViz) {
+        this(k, showViz, defaultBands(k), defaultRebalanceInterval(k));
+    }
+
+    // Constructor: Splits k servers into numBands bands of nearly equal size and recomputes the cutoffs every
+    // rebalanceInterval jobs.
+    public SITADispatcher(int k, boolean showViz, int numBands, int rebalanceInterval) {
+        super(k, showViz);
+        if (numBands < 1 || numBands > k) {
+            throw new IllegalArgumentException("The number of bands must be between 1 and " + k + ": " + numBands);
+        }
+        if (rebalanceInterval <= 0) {
+            throw new IllegalArgumentException("The rebalance interval must be positive: " + rebalanceInterval);
+        }
+        this.rebalanceInterval = rebalanceInterval;
+        this.nextRebalance = rebalanceInterval;
+        this.recentSizes = new LatencyHistogram();
+        this.history = new LatencyHistogram();
+        layOutBands(numBands);
+    }
+
+    // Splits the servers into numBands bands of nearly equal size, with no cutoffs yet, and fills every band's tree.
+    private void layOutBands(int numBands) {
+        int k = serverList.size();
+        this.numBands = numBands;
+        cutoffs = new double[numBands - 1];
+        bandStart = new int[numBands + 1];
+        bandOf = new int[k];
+        bands = new LoadTree[numBands];
+        for (int b = 0; b <= numBands; b++) {
+            bandStart[b] = (int) ((long) b * k / numBands);
+        }
+        for (int b = 0; b < numBands; b++) {
+            bands[b] = new LoadTree(bandStart[b + 1] - bandStart[b]);
+            for (int i = bandStart[b]; i < bandStart[b + 1]; i++) {
+                bandOf[i] = b;
+            }
+        }
+        for (int i = 0; i < k; i++) {
+            serverUpdated(i);
+        }
+    }
+
+    // Returns the default number of bands: one for the short jobs and one for the long ones. More bands isolate the
+    // sizes further but leave each band fewer servers to balance its own load over.
+    public static int defaultBands(int k) {
+        return Math.min(2, k);
+    }
+
+    // Returns the default number of jobs between rebalances.
+    public static int defaultRebalanceInterval(int k) {
+        return Math.max(8192, 64 * k);
+    }
+
+    // Returns the number of bands.
+    public int getNumBands() {
+        return numBands;
+    }
+
+    // Returns the first server of a band; the band runs up to the first server of the next one.
+    public int getBandStart(int band) {
+        return bandStart[band];
+    }
+
+    // Returns the current cutoffs: jobs no larger than cutoff b go to band b or lower, and larger jobs than the last
+    // cutoff go to the last band. Empty until the first rebalance.
+    public double[] getCutoffs() {
+        return balanced ? cutoffs.clone() : new double[0];
+    }
+
+    // Picks the server with the least remaining work in the band of the job's size.
+    // Ties go to the first such server in the band.
+    @Override
+    public Server pickServer(Job j) {
+        double size = j.getProcessingTimeNeeded();
+        if (!balanced) {
+            return serverList.get(leastLoaded());
+        }
+        int band = 0;
+        while (band < cutoffs.length && size > cutoffs[band]) {
+            band++;
+        }
+        return serverList.get(bandStart[band] + bands[band].argMin());
+    }
+
+    // Records the size of the dispatched job, and recomputes the cutoffs when a rebalance is due.
+    @Override
+    protected void jobDispatched(Job job, int serverIndex) {
+        recentSizes.record(job.getProcessingTimeNeeded());
+        if (getNumJobsHandled() >= nextRebalance) {
+            rebalance();
+        }
+    }
+
+    // Keeps the server's remaining work in its band's tree up to date.
+    @Override
+    protected void serverUpdated(int serverIndex) {
+        int band = bandOf[serverIndex];
+        bands[band].update(serverIndex - bandStart[band], getRemainingWork(serverIndex));
+    }
+
+    // The server with the least remaining work across all bands, the lowest index among equal ones.
+    private int leastLoaded() {
+        int best = 0;
+        double bestWork = Double.POSITIVE_INFINITY;
+        for (int b = 0; b < numBands; b++) {
+            if (bands[b].minKey() < bestWork) {
+                bestWork = bands[b].minKey();
+                best = bandStart[b] + bands[b].argMin();
+            }
+        }
+        return best;
+    }
+
+    // Folds the last interval's sizes into the history and recomputes the cutoffs from it, so every band gets the
+    // share of the work its servers are of the farm.
+    private void rebalance() {
+        nextRebalance += rebalanceInterval;
+        history.merge(recentSizes);
+        for (int b = 0; b < cutoffs.length; b++) {
+            cutoffs[b] = history.getValueAtWorkPercentile(100. * bandStart[b + 1] / serverList.size());
+        }
+        balanced = history.getTotalCount() > 0;
+        if (history.getTotalCount() >= (long) HISTORY_INTERVALS * rebalanceInterval) {
+            history.reset();
+            history.merge(recentSizes);
+        }
+        recentSizes.reset();
+    }
+
+    // Saves the band layout, the cutoffs, the size histograms and when the next rebalance is due.
+    @Override
+    protected void writePolicyState(DataOutputStream out) throws IOException {
+        out.writeInt(numBands);
+        out.writeInt(rebalanceInterval);
+        out.writeInt(nextRebalance);
+        out.writeBoolean(balanced);
+        for (double cutoff : cutoffs) {
+            out.writeDouble(cutoff);
+        }
+        recentSizes.writeTo(out);
+        history.writeTo(out);
+    }
+
+    // Restores the state written by writePolicyState, laying the bands out again if the saved dispatcher had a
+    // different number of them.
+    @Override
+    protected void readPolicyState(DataInputStream in) throws IOException {
+        int savedBands = in.readInt();
+        int savedInterval = in.readInt();
+        if (savedBands < 1 || savedBands > serverList.size() || savedInterval <= 0) {
+            throw new IOException("Not a SITADispatcher state for " + serverList.size() + " servers: " + savedBands
+                    + " bands every " + savedInterval + " jobs");
+        }
+        if (savedBands != numBands) {
+            layOutBands(savedBands);
+        }
+        rebalanceInterval = savedInterval;
+        nextRebalance = in.readInt();
+        balanced = in.readBoolean();
+        for (int b = 0; b < cutoffs.length; b++) {
+            cutoffs[b] = in.readDouble();
+        }
+        recentSizes = LatencyHistogram.readFrom(in);
+        history = LatencyHistogram.readFrom(in);
+    }
+}
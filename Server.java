@@ -6,31 +6,52 @@
                   job processing, tracking the total waiting time, and managing the queue of jobs based
                   on their processing needs. The Server class provides functionality to add jobs, process
                   them up to a certain time, and calculate metrics like total waiting time and remaining work.
+                  Queued jobs live in a JobStore of primitive arrays, so adding and finishing jobs does not allocate.
 */
 
 import java.awt.Graphics; 
 import java.awt.Color;
 import java.awt.Toolkit;
 import java.awt.Font;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.awt.GraphicsEnvironment;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Server {
-    protected Queue<Job> jobs;
+    protected JobStore jobs;
     protected double time; 
     protected double totalWaitingTime; 
+    protected LatencyHistogram waitingTimes;
     protected double remainingTime; 
     protected int numJobs; 
     protected int numJobsProcessed;
+    protected long processIterations;
+    private int serverIndex;
 
     // Constructor: Initializes a new Server with empty job queue and resets metrics
     public Server() {
         time = 0;
         totalWaitingTime = 0;
+        waitingTimes = new LatencyHistogram();
         remainingTime = 0;
         numJobs = 0;
         numJobsProcessed = 0;
-        jobs = new LinkedList<>();
+        processIterations = 0;
+        serverIndex = -1;
+        jobs = new JobStore();
+    }
+
+    // Returns this server's position in its dispatcher's server list, or -1 if it has not been assigned one
+    public int getServerIndex() {
+        return serverIndex;
+    }
+
+    // Records this server's position in its dispatcher's server list
+    public void setServerIndex(int serverIndex) {
+        this.serverIndex = serverIndex;
     }
 
     // Returns the total waiting time for all jobs processed by this server
@@ -38,10 +59,27 @@ public class Server {
         return totalWaitingTime;
     }
 
-    // Adds a job to the server's queue and updates metrics
+    // Returns the distribution of waiting times of the jobs this server has finished
+    public LatencyHistogram getWaitingTimeHistogram() {
+        return waitingTimes;
+    }
+
+    // Adds a job to the server's queue and updates metrics. The job's state is copied into the queue, so the Job itself is not modified
     public void addJob(Job job) {
-        jobs.offer(job);
-        remainingTime += job.getProcessingTimeNeeded();
+        addJob(job.getArrivalTime(), job.getProcessingTimeNeeded());
+    }
+
+    // Adds a job given by its arrival time and processing time to the server's queue and updates metrics
+    public void addJob(double arrivalTime, double processingTimeNeeded) {
+        jobs.add(arrivalTime, processingTimeNeeded);
+        remainingTime += processingTimeNeeded;
+        numJobs++;
+    }
+
+    // Adds a job that has already received some processing, such as one moved over from another server
+    public void addJob(double arrivalTime, double processingTimeNeeded, double processingTimeSpent) {
+        jobs.add(arrivalTime, processingTimeNeeded, processingTimeSpent);
+        remainingTime += processingTimeNeeded;
         numJobs++;
     }
 
@@ -49,17 +87,19 @@ public class Server {
     public void processTo(double processTime) {
         double timeLeft = processTime - time;
         while (numJobs > 0 && timeLeft > 0) {
-            Job currentJob = jobs.peek();
-            double timeToProcess = Math.min(currentJob.getProcessingTimeRemaining(), timeLeft);
-            currentJob.process(timeToProcess, time);
+            processIterations++;
+            double timeToProcess = Math.min(jobs.getProcessingTimeRemaining(0), timeLeft);
+            jobs.process(0, timeToProcess);
             timeLeft -= timeToProcess;
     
-            if (currentJob.isFinished()) {
-                jobs.poll();
-                totalWaitingTime += currentJob.timeInQueue();
+            if (jobs.isFinished(0)) {
+                double waitingTime = (time + timeToProcess) - jobs.getArrivalTime(0);
+                totalWaitingTime += waitingTime;
+                waitingTimes.record(waitingTime);
                 numJobs--;
                 numJobsProcessed++;
-                remainingTime -= currentJob.getProcessingTimeNeeded();
+                remainingTime -= jobs.getProcessingTimeNeeded(0);
+                jobs.removeFirst();
             }
     
             time += timeToProcess;
@@ -70,6 +110,14 @@ public class Server {
         }
     }
 
+    // Returns the time at which the job currently being processed will finish, or positive infinity if the server is idle
+    public double nextCompletionTime() {
+        if (numJobs == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return time + jobs.getProcessingTimeRemaining(0);
+    }
+
     // Returns the total remaining processing time for all jobs in the queue
     public double remainingWorkInQueue() {
         return remainingTime;
@@ -80,17 +128,94 @@ public class Server {
         return numJobs;
     }
 
+    // Returns the time up to which this server has processed its jobs
+    public double getTime() {
+        return time;
+    }
+
+    // Returns the number of passes processTo has made through its processing loop, for profiling
+    public long getProcessIterations() {
+        return processIterations;
+    }
+
+    // Returns the number of jobs this server has finished
+    public int getNumJobsProcessed() {
+        return numJobsProcessed;
+    }
+
+    // Returns copies of the jobs waiting at this server, in the order they arrived at it
+    public List<Job> getQueuedJobs() {
+        List<Job> queued = new ArrayList<>(numJobs);
+        for (int i = 0; i < numJobs; i++) {
+            queued.add(jobs.getJob(i));
+        }
+        return queued;
+    }
+
+    // Removes every job from the queue without counting any of them as finished
+    protected void clearQueue() {
+        jobs.clear();
+    }
+
+    // Adds the waiting times of the jobs another server has finished to this server's statistics
+    public void mergeStatistics(Server other) {
+        totalWaitingTime += other.totalWaitingTime;
+        numJobsProcessed += other.numJobsProcessed;
+        waitingTimes.merge(other.waitingTimes);
+    }
+
+    // Writes the server's clock, statistics and queued jobs. Jobs are written the same way by every kind of
+    // server, so the state of one kind of server can be restored into another
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeDouble(time);
+        out.writeDouble(totalWaitingTime);
+        out.writeDouble(remainingTime);
+        out.writeInt(numJobsProcessed);
+        waitingTimes.writeTo(out);
+        List<Job> queued = getQueuedJobs();
+        out.writeInt(queued.size());
+        for (Job job : queued) {
+            out.writeDouble(job.getArrivalTime());
+            out.writeDouble(job.getProcessingTimeNeeded());
+            out.writeDouble(job.getProcessingTimeNeeded() - job.getProcessingTimeRemaining());
+        }
+    }
+
+    // Replaces the server's state with state written by writeTo
+    public void readFrom(DataInputStream in) throws IOException {
+        time = in.readDouble();
+        totalWaitingTime = in.readDouble();
+        double savedRemainingTime = in.readDouble();
+        numJobsProcessed = in.readInt();
+        waitingTimes = LatencyHistogram.readFrom(in);
+        clearQueue();
+        numJobs = 0;
+        int queued = in.readInt();
+        for (int i = 0; i < queued; i++) {
+            addJob(in.readDouble(), in.readDouble(), in.readDouble());
+        }
+        // Set the saved total instead of the re-added sum, which can round differently
+        remainingTime = savedRemainingTime;
+    }
+
     // Draws the server's current state, including work and job count, using the provided Graphics context
     public void draw(Graphics g, Color c, double loc, int numberOfServers) {
+        drawState(g, c, loc, numberOfServers, remainingWorkInQueue(), size());
+    }
+
+    // Draws a server with the given remaining work and job count, so a snapshot of a server can be drawn without the server itself
+    public static void drawState(Graphics g, Color c, double loc, int numberOfServers, double remainingWork, int numJobs) {
         double sep = (ServerFarmViz.HEIGHT - 20) / (numberOfServers + 2.0);
+        // Offscreen rendering has no screen to ask for its resolution
+        int screenResolution = GraphicsEnvironment.isHeadless() ? 96 : Toolkit.getDefaultToolkit().getScreenResolution();
         g.setColor(Color.BLACK);
-        g.setFont(new Font(g.getFont().getName(), g.getFont().getStyle(), (int) (72.0 * (sep * .5) / Toolkit.getDefaultToolkit().getScreenResolution())));
-        g.drawString("Work: " + (remainingWorkInQueue() < 1000 ? remainingWorkInQueue() : ">1000"), 2, (int) (loc + .2 * sep));
-        g.drawString("Jobs: " + (size() < 1000 ? size() : ">1000"), 5 , (int) (loc + .55 * sep));
+        g.setFont(new Font(g.getFont().getName(), g.getFont().getStyle(), (int) (72.0 * (sep * .5) / screenResolution)));
+        g.drawString("Work: " + (remainingWork < 1000 ? remainingWork : ">1000"), 2, (int) (loc + .2 * sep));
+        g.drawString("Jobs: " + (numJobs < 1000 ? numJobs : ">1000"), 5 , (int) (loc + .55 * sep));
         g.setColor(c);
-        g.fillRect((int) (3 * sep), (int) loc, (int) (.8 * remainingWorkInQueue()), (int) sep);
+        g.fillRect((int) (3 * sep), (int) loc, (int) (.8 * remainingWork), (int) sep);
         g.drawOval(2 * (int) sep, (int) loc, (int) sep, (int) sep);
-        if (remainingWorkInQueue() == 0) g.setColor(Color.GREEN.darker());
+        if (remainingWork == 0) g.setColor(Color.GREEN.darker());
         else g.setColor(Color.RED.darker());
         g.fillOval(2 * (int) sep, (int) loc, (int) sep, (int) sep);
     }
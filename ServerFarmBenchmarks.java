@@ -0,0 +1,226 @@
+/*
+  file name:      ServerFarmBenchmarks.java
+  Authors:        Vishnu Varadhan
+  last modified:  10/18/2026
+  Class Purpose:  Microbenchmarks for the hot paths of the simulator: every dispatcher's pickServer and full
+                  handleJob from 4 to 10,000 servers, handleJob at 100,000 servers with the time advance split
+                  into shards, Server, PreemptiveServer, ProcessorSharingServer and LindleyServer processTo at
+                  several queue depths, the LinkedList and ArrayQueue operations, and JobMaker job generation.
+                  Each benchmark is warmed up, then timed over several iterations; the report gives the median time
+                  per operation and the bytes allocated per operation, measured from the thread's allocation
+                  counter. Every benchmark folds its results into a checksum that is printed at the end so the JIT
+                  cannot drop the work.
+
+                  Run with: java ServerFarmBenchmarks [name filter]
+*/
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Comparator;
+
+public class ServerFarmBenchmarks {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 10;
+    private static final long TARGET_ITERATION_NANOS = 100_000_000L;
+
+    // One benchmark: performs the operation ops times and returns a value derived from the results.
+    private interface Operation {
+        double run(int ops);
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static double checksum = 0;
+    private static String filter = "";
+
+    // Entry point: runs every benchmark whose name contains the optional filter argument.
+    public static void main(String[] args) {
+        filter = args.length > 0 ? args[0] : "";
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        System.out.println(String.format("%-48s %14s %14s", "Benchmark", "ns/op", "bytes/op"));
+        benchmarkPickServer();
+        benchmarkShards();
+        benchmarkProcessTo();
+        benchmarkQueues();
+        benchmarkJobMaker();
+        System.out.println("checksum " + checksum);
+    }
+
+    // pickServer of every dispatcher, with servers holding a realistic spread of queue lengths.
+    private static void benchmarkPickServer() {
+        String[] types = {"random", "round", "shortest", "least", "timeSensitive", "dlb", "powerOfTwo", "powerOfTwoLeast", "jiq", "sita"};
+        int[] serverCounts = {4, 34, 1000, 10000};
+        for (String type : types) {
+            for (int numServers : serverCounts) {
+                JobDispatcher dispatcher = ExperimentSweep.createDispatcher(type, numServers, false, 1);
+                // Load the farm at 90% utilization so the servers have uneven queues to choose between
+                JobMaker jobMaker = new JobMaker(100.0 / (0.9 * numServers), 100, 1);
+                for (int i = 0; i < 20 * numServers; i++) {
+                    dispatcher.handleJob(jobMaker.getNextJob());
+                }
+                Job job = jobMaker.getNextJob();
+                measure("pickServer " + type + " k=" + numServers, ops -> {
+                    double sum = 0;
+                    for (int i = 0; i < ops; i++) {
+                        sum += dispatcher.pickServer(job).size();
+                    }
+                    return sum;
+                });
+                // A whole arrival: advancing time, picking a server, and updating the dispatcher's load index
+                measure("handleJob " + type + " k=" + numServers, ops -> {
+                    for (int i = 0; i < ops; i++) {
+                        dispatcher.handleJob(jobMaker.getNextJob());
+                    }
+                    return dispatcher.getNumJobsHandled();
+                });
+            }
+        }
+    }
+
+    // handleJob of a very large farm with its time advance split into shards on several threads.
+    private static void benchmarkShards() {
+        int[] shardCounts = {1, 2, 4, 8};
+        for (int numShards : shardCounts) {
+            int numServers = 100000;
+            JobDispatcher dispatcher = ExperimentSweep.createDispatcher("least", numServers, false, 1);
+            dispatcher.useShards(numShards);
+            JobMaker jobMaker = new JobMaker(100.0 / (0.9 * numServers), 100, 1);
+            dispatcher.handleJobs(jobMaker, 20 * numServers);
+            measure("handleJob least k=" + numServers + " shards=" + numShards, ops -> {
+                dispatcher.handleJobs(jobMaker, ops);
+                return dispatcher.getNumJobsHandled();
+            });
+            dispatcher.useShards(1);
+        }
+    }
+
+    // processTo at a steady queue depth: each operation adds one job and processes until exactly one job finishes.
+    private static void benchmarkProcessTo() {
+        int[] depths = {1, 16, 256, 4096};
+        for (int depth : depths) {
+            measure("Server.processTo depth=" + depth, processToOperation(new Server(), depth));
+            measure("PreemptiveServer.processTo depth=" + depth, processToOperation(new PreemptiveServer(), depth));
+            measure("ProcessorSharingServer.processTo depth=" + depth, processToOperation(new ProcessorSharingServer(), depth));
+            measure("LindleyServer.processTo depth=" + depth, processToOperation(new LindleyServer(), depth));
+        }
+    }
+
+    private static Operation processToOperation(Server server, int depth) {
+        double[] now = {0};
+        for (int i = 0; i < depth; i++) {
+            server.addJob(now[0], 1.0);
+        }
+        return ops -> {
+            for (int i = 0; i < ops; i++) {
+                server.addJob(now[0], 1.0);
+                now[0] += 1.0;
+                server.processTo(now[0]);
+            }
+            return server.getTotalWaitingTime();
+        };
+    }
+
+    // Queue operations: steady-state offer/poll, and the linear findMin and removeMin scans used by reflection 2.
+    private static void benchmarkQueues() {
+        int[] sizes = {16, 256, 4096};
+        Comparator<Integer> natural = Comparator.naturalOrder();
+        for (int size : sizes) {
+            LinkedList<Integer> linked = new LinkedList<>();
+            ArrayQueue<Integer> array = new ArrayQueue<>();
+            for (int i = 0; i < size; i++) {
+                linked.offer(i);
+                array.offer(i);
+            }
+            measure("LinkedList offer/poll size=" + size, ops -> {
+                double sum = 0;
+                for (int i = 0; i < ops; i++) {
+                    linked.offer(i & 1023);
+                    sum += linked.poll();
+                }
+                return sum;
+            });
+            measure("ArrayQueue offer/poll size=" + size, ops -> {
+                double sum = 0;
+                for (int i = 0; i < ops; i++) {
+                    array.offer(i & 1023);
+                    sum += array.poll();
+                }
+                return sum;
+            });
+            measure("LinkedList findMin size=" + size, ops -> {
+                double sum = 0;
+                for (int i = 0; i < ops; i++) {
+                    sum += linked.findMin(natural);
+                }
+                return sum;
+            });
+            measure("LinkedList removeMin+offer size=" + size, ops -> {
+                double sum = 0;
+                for (int i = 0; i < ops; i++) {
+                    int min = linked.removeMin(natural);
+                    linked.offer(min);
+                    sum += min;
+                }
+                return sum;
+            });
+        }
+    }
+
+    // Job generation, one job at a time and in bulk.
+    private static void benchmarkJobMaker() {
+        JobMaker jobMaker = new JobMaker(3, 100, 1);
+        measure("JobMaker.getNextJob", ops -> {
+            double sum = 0;
+            for (int i = 0; i < ops; i++) {
+                sum += jobMaker.getNextJob().getProcessingTimeNeeded();
+            }
+            return sum;
+        });
+        double[] arrivals = new double[1024];
+        double[] sizes = new double[1024];
+        measure("JobMaker.nextJobs (per job, batches of 1024)", ops -> {
+            double sum = 0;
+            for (int done = 0; done < ops; done += 1024) {
+                int count = Math.min(1024, ops - done);
+                jobMaker.nextJobs(arrivals, sizes, 0, count);
+                sum += sizes[count - 1];
+            }
+            return sum;
+        });
+    }
+
+    // Warms up the operation, sizes an iteration to about 100 ms, then reports the median of the measured iterations.
+    private static void measure(String name, Operation operation) {
+        if (!name.contains(filter)) {
+            return;
+        }
+        int ops = 1;
+        while (true) {
+            long start = System.nanoTime();
+            checksum += operation.run(ops);
+            if (System.nanoTime() - start > TARGET_ITERATION_NANOS / 10 || ops >= (1 << 30) / 10) {
+                ops = (int) Math.min(1 << 30, Math.max(1, ops * (TARGET_ITERATION_NANOS / Math.max(1, System.nanoTime() - start))));
+                break;
+            }
+            ops *= 10;
+        }
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            checksum += operation.run(ops);
+        }
+
+        double[] nanosPerOp = new double[MEASURED_ITERATIONS];
+        long allocated = 0;
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long bytesBefore = THREADS.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            checksum += operation.run(ops);
+            nanosPerOp[i] = (System.nanoTime() - start) / (double) ops;
+            allocated += THREADS.getThreadAllocatedBytes(thread) - bytesBefore;
+        }
+        Arrays.sort(nanosPerOp);
+        double bytesPerOp = allocated / ((double) ops * MEASURED_ITERATIONS);
+        System.out.println(String.format("%-48s %14.2f %14.2f", name, nanosPerOp[MEASURED_ITERATIONS / 2], bytesPerOp));
+    }
+}
@@ -18,6 +18,8 @@ public class ServerFarmSimulation {
         int numServers = 4 ; //Numbers of servers in the farm
         int numJobs = 10 ; //Number of jobs to process
         boolean showViz = true ; //Set to true to see the visualization, and false to run your experiments
+        double speedUp = 10 ; //Units of simulated time shown per second of visualization
+        String frameDirectory = null ; //Set to a directory to also save the visualization there as PNG frames
 
         //Main experiment settings
         /**
@@ -43,6 +45,11 @@ public class ServerFarmSimulation {
             dispatcher = new LeastWorkDispatcher( numServers , showViz ) ; 
         }
         
+        dispatcher.getVisualization().setSpeedUp( speedUp ) ;
+        if ( frameDirectory != null ) {
+            dispatcher.getVisualization().recordFrames( frameDirectory ) ;
+        }
+
         //Have the dispatched handle the specified number of jobs
         for ( int i = 0 ; i < numJobs ; i ++ ) {
             dispatcher.handleJob( jobMaker.getNextJob() ) ;
@@ -52,6 +59,8 @@ public class ServerFarmSimulation {
         
         //Print out the mean processing time
         System.out.println( "Dispatcher: " + dispatcherType + ", Avg. Wait time: " + dispatcher.getAverageWaitingTime() ) ;
+        //Print out the tail of the waiting time distribution
+        System.out.println( "Waiting times: " + dispatcher.getWaitingTimeHistogram() ) ;
 
     }
 
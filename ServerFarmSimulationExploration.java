@@ -5,33 +5,45 @@
   Class Purpose:  This class is designed to simulate and compare the performance of different job dispatching strategies
                   within a server farm. It assesses the average waiting time of jobs under various dispatchers and
                   analyzes the impact of changing the number of servers on the efficiency of the shortest queue dispatcher.
-*/
+                  The job stream is generated once and replayed for every run, so all runs see the same workload.
+                  Each result is printed next to the closed-form prediction of AnalyticEstimator. Given the optional
+                  argument true, server counts the prediction shows to be unstable are reported as such instead of
+                  simulated.
 
-import java.util.ArrayList;
+                  Run with: java ServerFarmSimulationExploration [skip unstable server counts]
+*/
 
 public class ServerFarmSimulationExploration {
+    private static final long SEED = 2024; // Seed for the shared job stream and the random dispatcher, so results can be reproduced
 
     // Entry point of the simulation. It compares dispatchers and analyzes the shortest queue with varying servers.
+    // Optional argument: true to skip the server counts that cannot keep up with the arrivals (false by default).
     public static void main(String[] args) {
-        compareDispatchers();
-        analyzeShortestQueueWithVaryingServers();
+        boolean skipUnstable = args.length > 0 && Boolean.parseBoolean(args[0]);
+        int meanArrivalTime = 3;
+        int meanProcessingTime = 100;
+        int numJobs = 10000000;
+        JobTrace trace = JobTrace.generate(new JobMaker(meanArrivalTime, meanProcessingTime, SEED), numJobs);
+
+        compareDispatchers(trace);
+        analyzeShortestQueueWithVaryingServers(trace, skipUnstable);
     }
 
     // Compares different dispatcher strategies by running simulations and printing their average waiting times.
-    private static void compareDispatchers() {
+    private static void compareDispatchers(JobTrace trace) {
         int meanArrivalTime = 3; 
         int meanProcessingTime = 100; 
         int numServers = 34; 
-        int numJobs = 10000000; 
         boolean showViz = false; 
         String[] dispatcherTypes = {"random", "round", "shortest", "least"};
 
-        System.out.println("Dispatcher Type | Average Waiting Time");
+        System.out.println("Dispatcher Type | Average Waiting Time | Predicted");
 
         for (String dispatcherType : dispatcherTypes) {
             JobDispatcher dispatcher = createDispatcher(dispatcherType, numServers, showViz, meanArrivalTime, meanProcessingTime);
-            runSimulation(dispatcher, numJobs);
-            System.out.println(dispatcherType + "    " + dispatcher.getAverageWaitingTime());
+            runSimulation(dispatcher, trace);
+            AnalyticEstimator.Prediction prediction = AnalyticEstimator.predict(dispatcherType, numServers, meanArrivalTime, meanProcessingTime);
+            System.out.println(dispatcherType + "    " + dispatcher.getAverageWaitingTime() + "    " + prediction);
         }
     }
 
@@ -39,7 +51,7 @@ public class ServerFarmSimulationExploration {
     private static JobDispatcher createDispatcher(String type, int numServers, boolean showViz, int meanArrivalTime, int meanProcessingTime) {
         switch (type) {
             case "random":
-                return new RandomDispatcher(numServers, showViz);
+                return new RandomDispatcher(numServers, showViz, SEED);
             case "round":
                 return new RoundRobinDispatcher(numServers, showViz);
             case "shortest":
@@ -51,28 +63,31 @@ public class ServerFarmSimulationExploration {
         }
     }
 
-    // Runs the simulation for a given dispatcher and number of jobs, then finalizes the simulation.
-    private static void runSimulation(JobDispatcher dispatcher, int numJobs) {
-        JobMaker jobMaker = new JobMaker(3, 100); 
-        for (int i = 0; i < numJobs; i++) {
-            dispatcher.handleJob(jobMaker.getNextJob());
-        }
+    // Runs the simulation for a given dispatcher over every job in the trace, then finalizes the simulation.
+    private static void runSimulation(JobDispatcher dispatcher, JobTrace trace) {
+        trace.replay(dispatcher);
         dispatcher.finishUp();
     }
 
     // Analyzes the performance of the Shortest Queue dispatcher as the number of servers varies.
-    private static void analyzeShortestQueueWithVaryingServers() {
+    // If skipUnstable is set, server counts too small to keep up with the arrivals are skipped, since their waiting
+    // times grow without bound.
+    private static void analyzeShortestQueueWithVaryingServers(JobTrace trace, boolean skipUnstable) {
         int meanArrivalTime = 3;
         int meanProcessingTime = 100;
-        int numJobs = 10000000;
         boolean showViz = false;
 
-        System.out.println("\nNumber of Servers\tAverage Waiting Time");
+        System.out.println("\nNumber of Servers\tAverage Waiting Time\tPredicted");
 
         for (int numServers = 30; numServers <= 40; numServers++) {
+            AnalyticEstimator.Prediction prediction = AnalyticEstimator.predict("shortest", numServers, meanArrivalTime, meanProcessingTime);
+            if (skipUnstable && !prediction.isStable()) {
+                System.out.println(numServers + "\t\t\t\t" + prediction);
+                continue;
+            }
             JobDispatcher dispatcher = new ShortestQueueDispatcher(numServers, showViz);
-            runSimulation(dispatcher, numJobs);
-            System.out.println(numServers + "\t\t\t\t" + dispatcher.getAverageWaitingTime());
+            runSimulation(dispatcher, trace);
+            System.out.println(numServers + "\t\t\t\t" + dispatcher.getAverageWaitingTime() + "\t" + prediction);
         }
     }
 }
\ No newline at end of file
@@ -7,86 +7,82 @@
                   analyzes the impact of changing the number of servers on the efficiency of the shortest queue dispatcher.
 */
 
-import java.util.ArrayList;
+import java.util.List;
 
 public class ServerFarmSimulationExtension {
+    private static final long SEED = 2024; // Base seed for the job streams, so results can be reproduced
+
     // Entry point of the simulation. It compares dispatchers and analyzes the shortest queue with varying servers.
     public static void main(String[] args) {
         compareDispatchers();
         analyzeShortestQueueWithVaryingServers();
+        tuneDLBWeights();
     }
 
     // Compares different dispatcher strategies by running simulations and printing their average waiting times.
+    // The runs are independent, so they go through an ExperimentSweep and use every available core. Each run stops
+    // once its steady-state mean is known to within 5%, with the warm-up discarded, or after at most numJobs jobs.
     private static void compareDispatchers() {
         int meanArrivalTime = 3;
         int meanProcessingTime = 100;
         int numServers = 34;
         int numJobs = 10000000;
-        boolean showViz = false;
-        // Added "timeSensitive" and "dlb" to the array of dispatcher types to be tested
-        String[] dispatcherTypes = {"random", "round", "shortest", "least", "timeSensitive", "dlb"};
-
-        System.out.println("Dispatcher Type | Average Waiting Time");
+        // Added "timeSensitive" and "dlb" to the array of dispatcher types to be tested, and the dispatchers that
+        // scale to very large farms: power of two choices (by queue length and by work) and join-idle-queue
+        String[] dispatcherTypes = {"random", "round", "shortest", "least", "timeSensitive", "dlb", "powerOfTwo", "powerOfTwoLeast", "jiq"};
 
-        for (String dispatcherType : dispatcherTypes) {
-            JobDispatcher dispatcher = createDispatcher(dispatcherType, numServers, showViz, meanArrivalTime, meanProcessingTime);
-            runSimulation(dispatcher, numJobs);
-            System.out.println(dispatcherType + "    " + dispatcher.getAverageWaitingTime());
-        }
-    }
+        ExperimentSweep sweep = new ExperimentSweep(numJobs, 1, SEED);
+        sweep.setStoppingRule(0.05);
+        sweep.addGrid(dispatcherTypes, numServers, numServers, meanArrivalTime, meanProcessingTime);
 
-    // Creates a dispatcher of a specific type for the simulation.
-    private static JobDispatcher createDispatcher(String type, int numServers, boolean showViz, int meanArrivalTime, int meanProcessingTime) {
-        // Added cases for "timeSensitive" and "dlb"
-        switch (type) {
-            case "random":
-                return new RandomDispatcher(numServers, showViz);
-            case "round":
-                return new RoundRobinDispatcher(numServers, showViz);
-            case "shortest":
-                return new ShortestQueueDispatcher(numServers, showViz);
-            case "least":
-                return new LeastWorkDispatcher(numServers, showViz);
-            case "timeSensitive":
-                return new TimeSensitiveDispatcher(numServers, showViz); // Assuming this is your implemented class
-            case "dlb":
-                return new DLBDispatcher(numServers, showViz); // Assuming this is your implemented class
-            default:
-                return null;
-        }
-    }
+        System.out.println("Dispatcher Type | Average Waiting Time");
 
-    // Runs the simulation for a given dispatcher and number of jobs, then finalizes the simulation.
-    private static void runSimulation(JobDispatcher dispatcher, int numJobs) {
-        JobMaker jobMaker = new JobMaker(3, 100);
-        for (int i = 0; i < numJobs; i++) {
-            dispatcher.handleJob(jobMaker.getNextJob());
+        for (ExperimentSweep.Result result : sweep.run()) {
+            System.out.println(result.configuration.dispatcherType + "    " + result.getReport(0));
         }
-        dispatcher.finishUp();
     }
 
-    // Analyzes the performance of the Shortest Queue dispatcher as the number of servers varies.
+    // Analyzes the performance of the DLB and Time Sensitive dispatchers as the number of servers varies.
     private static void analyzeShortestQueueWithVaryingServers() {
         int meanArrivalTime = 3;
         int meanProcessingTime = 100;
         int numJobs = 10000000;
-        boolean showViz = false;
+
+        ExperimentSweep sweep = new ExperimentSweep(numJobs, 1, SEED);
+        sweep.addGrid(new String[] {"dlb", "timeSensitive"}, 30, 40, meanArrivalTime, meanProcessingTime);
+        List<ExperimentSweep.Result> results = sweep.run();
 
         System.out.println("\nNumber of Servers\tAverage Waiting Time -- DLB ");
 
-        for (int numServers = 30; numServers <= 40; numServers++) {
-            JobDispatcher dispatcher = new DLBDispatcher(numServers, showViz);
-            runSimulation(dispatcher, numJobs);
-            System.out.println(numServers + "\t\t\t\t" + dispatcher.getAverageWaitingTime());
+        for (ExperimentSweep.Result result : results.subList(0, 11)) {
+            System.out.println(result.configuration.numServers + "\t\t\t\t" + result.mean());
         }
 
 
         System.out.println("\nNumber of Servers\tAverage Waiting Time -- TSD ");
 
-        for (int numServers = 30; numServers <= 40; numServers++) {
-            JobDispatcher dispatcher = new TimeSensitiveDispatcher(numServers, showViz);
-            runSimulation(dispatcher, numJobs);
-            System.out.println(numServers + "\t\t\t\t" + dispatcher.getAverageWaitingTime());
+        for (ExperimentSweep.Result result : results.subList(11, 22)) {
+            System.out.println(result.configuration.numServers + "\t\t\t\t" + result.mean());
         }
     }
+
+    // Lets the adaptive DLB dispatcher learn its weights on the same job stream the fixed 0.5/0.5 weights run on,
+    // and reports the weights it settled on.
+    private static void tuneDLBWeights() {
+        int numServers = 34;
+        int numJobs = 10000000;
+
+        AdaptiveDLBDispatcher adaptive = new AdaptiveDLBDispatcher(numServers, false);
+        adaptive.handleJobs(new JobMaker(3, 100, SEED), numJobs);
+        adaptive.finishUp();
+        DLBDispatcher fixed = new DLBDispatcher(numServers, false);
+        fixed.handleJobs(new JobMaker(3, 100, SEED), numJobs);
+        fixed.finishUp();
+
+        System.out.println("\nDLB Weights\t\tQueue Length\tRemaining Work\tAverage Waiting Time");
+        System.out.println("fixed\t\t\t" + fixed.getQueueLengthWeight() + "\t\t" + fixed.getRemainingWorkWeight()
+                + "\t\t" + fixed.getAverageWaitingTime());
+        System.out.println("learned (u = " + adaptive.getQueueLengthShare() + " after " + adaptive.getIterations() + " steps)\t"
+                + adaptive.getQueueLengthWeight() + "\t" + adaptive.getRemainingWorkWeight() + "\t" + adaptive.getAverageWaitingTime());
+    }
 }
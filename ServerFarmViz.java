@@ -10,20 +10,29 @@
 
   The JPanel calls the Landscape's draw method to fill in content, so the
   Landscape class needs a draw method.
+
+  The simulation never waits for the display: every time its clock passes
+  the next frame time, it publishes an immutable FarmSnapshot and carries
+  on. A Swing timer paints the published frames at a fixed frame rate, and
+  in offscreen mode a writer thread saves every frame as a PNG instead. The
+  speed-up factor sets how much simulated time passes per second of
+  playback.
 */
 
 import java.awt.BorderLayout;
 import java.awt.Color;
-import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import javax.imageio.ImageIO;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
+import javax.swing.Timer;
 
 public class ServerFarmViz {
     JFrame win;
@@ -32,6 +41,21 @@ public class ServerFarmViz {
     private boolean showViz ;
     public static final int WIDTH = 800;
     public static final int HEIGHT = 400;
+    public static final double DEFAULT_SPEED_UP = 10;
+    public static final int DEFAULT_FRAME_RATE = 30;
+
+    // Marks the end of the frames handed to the offscreen writer
+    private static final FarmSnapshot END_OF_FRAMES = new FarmSnapshot(0, 0, new double[0], new int[0]);
+
+    private double speedUp ;
+    private int frameRate ;
+    private double nextFrameTime ;
+    private Timer renderTimer ;
+    private BlockingQueue<FarmSnapshot> liveFrames ;
+    private volatile FarmSnapshot displayedFrame ;
+    private String frameDirectory ;
+    private BlockingQueue<FarmSnapshot> recordedFrames ;
+    private Thread frameWriter ;
 
     /**
      * Initializes a display window for a Landscape.
@@ -41,14 +65,16 @@ public class ServerFarmViz {
      */
     public ServerFarmViz(JobDispatcher dispatcher , boolean showViz ) {
         this.showViz = showViz;
+        this.dispatcher = dispatcher;
+        this.speedUp = DEFAULT_SPEED_UP;
+        this.frameRate = DEFAULT_FRAME_RATE;
+        this.nextFrameTime = 0;
 
         if ( this.showViz ) {
             // setup the window
             this.win = new JFrame("Grid-Search");
             this.win.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
-            this.dispatcher = dispatcher;
-
             // create a panel in which to display the Landscape
             // put a buffer of two rows around the display grid
             this.canvas = new LandscapePanel(WIDTH, HEIGHT);
@@ -57,6 +83,11 @@ public class ServerFarmViz {
             this.win.add(this.canvas, BorderLayout.CENTER);
             this.win.pack();
             this.win.setVisible(true);
+
+            // hold about two seconds of frames; when the simulation gets further ahead, the oldest are dropped
+            this.liveFrames = new LinkedBlockingQueue<>(2 * frameRate);
+            this.renderTimer = new Timer(1000 / frameRate, e -> showNextFrame());
+            this.renderTimer.start();
         }
     }
 
@@ -64,7 +95,54 @@ public class ServerFarmViz {
         this.dispatcher = dispatcher;
     }
 
+    /**
+     * Sets how many units of simulated time pass per second of playback.
+     *
+     * @param speedUp simulated time per second, greater than zero
+     */
+    public void setSpeedUp(double speedUp) {
+        if (!(speedUp > 0)) {
+            throw new IllegalArgumentException("The speed-up factor must be positive: " + speedUp);
+        }
+        this.speedUp = speedUp;
+    }
+
+    /**
+     * Sets how many frames are shown or recorded per second of playback.
+     *
+     * @param frameRate frames per second, greater than zero
+     */
+    public void setFrameRate(int frameRate) {
+        if (frameRate <= 0) {
+            throw new IllegalArgumentException("The frame rate must be positive: " + frameRate);
+        }
+        this.frameRate = frameRate;
+        if (this.renderTimer != null) {
+            this.renderTimer.setDelay(1000 / frameRate);
+        }
+    }
+
+    /**
+     * Saves every frame as a numbered PNG file in the given directory, on a
+     * separate thread, whether or not the window is shown. Call this before
+     * the first job is handled. Unlike the window, the recording keeps every
+     * frame, so the files play back at exactly the speed-up factor. The
+     * recording ends when the dispatcher's finishUp is called.
+     *
+     * @param directory the directory the frames are written to
+     */
+    public void recordFrames(String directory) {
+        new File(directory).mkdirs();
+        this.frameDirectory = directory;
+        this.recordedFrames = new LinkedBlockingQueue<>();
+        this.frameWriter = new Thread(this::writeFrames, "frame-writer");
+        this.frameWriter.start();
+    }
+
     public void closeWindow() {
+        if (this.renderTimer != null) {
+            this.renderTimer.stop();
+        }
         this.win.dispose();
     }
 
@@ -76,17 +154,31 @@ public class ServerFarmViz {
      * @param filename the name of the file to save
      */
     public void saveImage(String filename) {
+        saveImage(this.displayedFrame, filename);
+    }
+
+    /**
+     * Saves an image of a frame to a file, the way the window would show
+     * it. Needs no window, so it also works offscreen.
+     *
+     * @param frame    the frame to draw, or null for an empty display
+     * @param filename the name of the file to save
+     */
+    private void saveImage(FarmSnapshot frame, String filename) {
         // get the file extension from the filename
         String ext = filename.substring(filename.lastIndexOf('.') + 1, filename.length());
 
-        // create an image buffer to save this component
-        Component tosave = this.win.getRootPane();
-        BufferedImage image = new BufferedImage(tosave.getWidth(), tosave.getHeight(),
-                BufferedImage.TYPE_INT_RGB);
+        // create an image buffer the size of the display
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
 
-        // paint the component to the image buffer
+        // paint the frame to the image buffer
         Graphics g = image.createGraphics();
-        tosave.paint(g);
+        g.setColor(Color.lightGray);
+        g.fillRect(0, 0, WIDTH, HEIGHT);
+        g.setColor(Color.BLACK);
+        if (frame != null) {
+            frame.draw(g);
+        }
         g.dispose();
 
         // save the image
@@ -125,21 +217,83 @@ public class ServerFarmViz {
             // take care of housekeeping by calling parent paintComponent
             super.paintComponent(g);
 
-            // call the Landscape draw method here
-            dispatcher.draw(g);
+            // draw the latest published frame; the live servers belong to the simulation thread
+            FarmSnapshot frame = displayedFrame;
+            if (frame != null) {
+                frame.draw(g);
+            }
         } // end paintComponent
 
     } // end LandscapePanel
 
+    /**
+     * Called by the dispatcher on the simulation thread whenever the farm
+     * changes. Publishes a snapshot each time the simulation clock passes
+     * the next frame time and returns at once; it never waits for the
+     * display. When the clock jumps over several frame times, the snapshot
+     * is repeated for each of them, up to one second of playback, so that
+     * quiet periods still take their share of screen time.
+     */
     public void repaint() {
-        if ( this.showViz ) {
-            try {
-                Thread.sleep(1500);
-            } catch (InterruptedException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
+        if ( !this.showViz && this.recordedFrames == null ) {
+            return;
+        }
+        double time = this.dispatcher.getTime();
+        if ( time < this.nextFrameTime ) {
+            return;
+        }
+        double frameInterval = this.speedUp / this.frameRate;
+        long framesPassed = (long) Math.floor((time - this.nextFrameTime) / frameInterval) + 1;
+        this.nextFrameTime += framesPassed * frameInterval;
+        FarmSnapshot frame = FarmSnapshot.of(this.dispatcher);
+        for (long i = 0; i < Math.min(framesPassed, this.frameRate); i++) {
+            publish(frame);
+        }
+    }
+
+    /**
+     * Called by the dispatcher once the simulation is over. The window keeps
+     * playing the frames it holds; the offscreen recording writes its
+     * remaining frames and then stops.
+     */
+    public void finish() {
+        if ( this.recordedFrames != null ) {
+            this.recordedFrames.add(END_OF_FRAMES);
+            this.recordedFrames = null;
+        }
+    }
+
+    // Hands a frame to the window and the recording without ever blocking the simulation
+    private void publish(FarmSnapshot frame) {
+        if ( this.liveFrames != null ) {
+            while ( !this.liveFrames.offer(frame) ) {
+                this.liveFrames.poll();
+            }
+        }
+        if ( this.recordedFrames != null ) {
+            this.recordedFrames.add(frame);
+        }
+    }
+
+    // Runs on the Swing timer: shows the next published frame, if there is one
+    private void showNextFrame() {
+        FarmSnapshot frame = this.liveFrames.poll();
+        if ( frame != null ) {
+            this.displayedFrame = frame;
+            this.canvas.repaint();
+        }
+    }
+
+    // Runs on the frame writer thread: saves frames in order until the end of the recording
+    private void writeFrames() {
+        BlockingQueue<FarmSnapshot> frames = this.recordedFrames;
+        try {
+            int frameNumber = 0;
+            for ( FarmSnapshot frame = frames.take(); frame != END_OF_FRAMES; frame = frames.take() ) {
+                saveImage(frame, new File(this.frameDirectory, String.format("frame%06d.png", frameNumber++)).getPath());
             }
-            this.win.repaint();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,259 @@
+/*
+file name:      ShardedTimeAdvance.java
+Authors:        Vishnu Varadhan
+last modified:  10/18/2026
+Class Purpose:  Multi-core time advance for very large farms. The servers are split into contiguous shards, each
+                with its own future-event list and each pinned to one thread: shard 0 to the simulation thread and
+                every other shard to a worker of its own. Between two arrivals the servers do not interact, so when
+                several shards have completions due, they process them at the same time, and the simulation thread
+                waits at a spin barrier before pickServer needs a consistent view. Each shard records the servers it
+                changed in a buffer of its own, so nothing is shared while the shards run; the dispatcher applies
+                the buffers after the barrier. Every server sees exactly the same sequence of processTo calls as in
+                a serial run, so the results are identical. When at most one shard has work, it is processed on the
+                simulation thread without waking anyone, which keeps the common case of one completion per arrival
+                as cheap as the serial kernel.
+*/
+
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+public class ShardedTimeAdvance {
+    private static final int SPINS_BEFORE_PARKING = 1 << 14;
+
+    private final List<Server> servers;
+    private final int numShards;
+    private final int shardSize;            // servers per shard; the last shard may have fewer
+    private final FutureEventList[] events; // per shard, indexed by the server's position within the shard
+    private final int[][] changed;          // per shard, the servers changed in the current advance
+    private final int[] numChanged;
+    private final long[] changedInAdvance;  // per server, the last advance in which it was recorded as changed
+    private final Worker[] workers;         // workers[s] runs shard s; there is none for shard 0
+    private final int spins;                // busy-wait iterations before yielding or parking; 0 when threads outnumber cores
+
+    private long advance;          // number of the current advance, used to record each changed server once
+    private volatile long phase;   // bumped to start the workers on the next parallel phase
+    private double target;         // time the shards are advanced to in the current phase
+    private boolean processAll;    // true if the phase brings every server to the target, not only those with events
+    private final long[] activePhase; // per shard, the last phase the shard takes part in
+
+    // Constructor: Splits the servers into numShards shards and starts a worker thread for every shard but the first.
+    public ShardedTimeAdvance(List<Server> servers, int numShards) {
+        int k = servers.size();
+        int shards = Math.max(1, Math.min(numShards, k));
+        this.servers = servers;
+        this.shardSize = (k + shards - 1) / shards;
+        this.numShards = (k + shardSize - 1) / shardSize;
+        this.events = new FutureEventList[this.numShards];
+        this.changed = new int[this.numShards][];
+        this.numChanged = new int[this.numShards];
+        this.changedInAdvance = new long[k];
+        this.activePhase = new long[this.numShards];
+        for (int s = 0; s < this.numShards; s++) {
+            int size = Math.min(shardSize, k - s * shardSize);
+            events[s] = new FutureEventList(size);
+            changed[s] = new int[size];
+        }
+        this.advance = 1;
+        // Spinning only pays if every shard has a core of its own; otherwise it steals time from the shard it waits for
+        this.spins = this.numShards <= Runtime.getRuntime().availableProcessors() ? SPINS_BEFORE_PARKING : 0;
+        this.workers = new Worker[this.numShards];
+        for (int s = 1; s < this.numShards; s++) {
+            workers[s] = new Worker(s);
+            workers[s].start();
+        }
+    }
+
+    // Returns the number of shards.
+    public int getNumShards() {
+        return numShards;
+    }
+
+    // Returns the time of a server's pending completion event, or positive infinity if it has none.
+    public double getTime(int server) {
+        return events[server / shardSize].getTime(server % shardSize);
+    }
+
+    // Sets the pending completion event of a server. Only called from the simulation thread between advances.
+    public void schedule(int server, double time) {
+        events[server / shardSize].schedule(server % shardSize, time);
+    }
+
+    // Removes every pending event.
+    public void clear() {
+        for (FutureEventList list : events) {
+            list.clear();
+        }
+    }
+
+    // Processes every completion event up to the given time, in parallel when more than one shard has events due.
+    // Afterwards, getNumChanged and getChanged list the servers that changed, shard by shard.
+    public void advanceTo(double time) {
+        startAdvance();
+        int first = -1;
+        int due = 0;
+        for (int s = 0; s < numShards; s++) {
+            if (events[s].nextTime() <= time) {
+                first = first < 0 ? s : first;
+                due++;
+            }
+        }
+        if (due == 1) {
+            processEvents(first, time);
+        } else if (due > 1) {
+            for (int s = first; s < numShards; s++) {
+                if (events[s].nextTime() <= time) {
+                    activePhase[s] = phase + 1;
+                }
+            }
+            runPhase(time, false);
+        }
+    }
+
+    // Brings every server to the given time, processing their queues in parallel.
+    public void processAllTo(double time) {
+        startAdvance();
+        for (int s = 0; s < numShards; s++) {
+            activePhase[s] = phase + 1;
+        }
+        runPhase(time, true);
+    }
+
+    // Returns the number of servers the given shard changed in the last advance.
+    public int getNumChanged(int shard) {
+        return numChanged[shard];
+    }
+
+    // Returns the i-th server the given shard changed in the last advance.
+    public int getChanged(int shard, int i) {
+        return changed[shard][i];
+    }
+
+    // Stops the worker threads. The shards must not be advanced afterwards.
+    public void stop() {
+        for (int s = 1; s < numShards; s++) {
+            workers[s].running = false;
+        }
+        phase++;
+        for (int s = 1; s < numShards; s++) {
+            LockSupport.unpark(workers[s]);
+        }
+    }
+
+    private void startAdvance() {
+        advance++;
+        for (int s = 0; s < numShards; s++) {
+            numChanged[s] = 0;
+        }
+    }
+
+    // Starts the active workers, runs shard 0 here, then waits until every active worker is done. A worker only
+    // runs if its shard is active in the very phase it saw start, so a worker that missed a phase never runs late.
+    private void runPhase(double time, boolean all) {
+        target = time;
+        processAll = all;
+        long current = ++phase; // the volatile write publishes target, processAll, activePhase and the event lists
+        for (int s = 1; s < numShards; s++) {
+            if (activePhase[s] == current && workers[s].parked) {
+                LockSupport.unpark(workers[s]);
+            }
+        }
+        if (activePhase[0] == current) {
+            runShard(0);
+        }
+        for (int s = 1; s < numShards; s++) {
+            if (activePhase[s] == current) {
+                int spun = 0;
+                while (workers[s].donePhase != current) {
+                    if (spun++ < spins) {
+                        Thread.onSpinWait();
+                    } else {
+                        Thread.yield();
+                    }
+                }
+            }
+        }
+    }
+
+    private void runShard(int shard) {
+        if (processAll) {
+            processServers(shard, target);
+        } else {
+            processEvents(shard, target);
+        }
+    }
+
+    // Processes the events of one shard up to the given time, the same way the serial kernel does.
+    private void processEvents(int shard, double time) {
+        FutureEventList list = events[shard];
+        int base = shard * shardSize;
+        while (list.nextTime() <= time) {
+            double eventTime = list.nextTime();
+            int local = list.nextServer();
+            Server server = servers.get(base + local);
+            server.processTo(eventTime);
+            list.schedule(local, JobDispatcher.completionEventTime(server, eventTime));
+            recordChanged(shard, base + local);
+        }
+    }
+
+    // Brings every server of one shard to the given time.
+    private void processServers(int shard, double time) {
+        FutureEventList list = events[shard];
+        int base = shard * shardSize;
+        int size = changed[shard].length;
+        for (int local = 0; local < size; local++) {
+            Server server = servers.get(base + local);
+            server.processTo(time);
+            list.schedule(local, JobDispatcher.completionEventTime(server, time));
+            recordChanged(shard, base + local);
+        }
+    }
+
+    private void recordChanged(int shard, int server) {
+        if (changedInAdvance[server] != advance) {
+            changedInAdvance[server] = advance;
+            changed[shard][numChanged[shard]++] = server;
+        }
+    }
+
+    // Runs one shard whenever the simulation thread starts a phase in which the shard is active.
+    private class Worker extends Thread {
+        private final int shard;
+        private volatile boolean running = true;
+        private volatile boolean parked = false;
+        private volatile long donePhase = 0;
+
+        Worker(int shard) {
+            super("shard-" + shard);
+            this.shard = shard;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long seen = 0;
+            while (true) {
+                int spun = 0;
+                while (phase == seen) {
+                    if (spun++ < spins) {
+                        Thread.onSpinWait();
+                    } else {
+                        parked = true;
+                        if (phase == seen) {
+                            LockSupport.park(this);
+                        }
+                        parked = false;
+                    }
+                }
+                seen = phase;
+                if (!running) {
+                    return;
+                }
+                if (activePhase[shard] == seen) {
+                    runShard(shard);
+                    donePhase = seen;
+                }
+            }
+        }
+    }
+}
@@ -5,30 +5,32 @@
   Class Purpose:  This class extends the JobDispatcher to implement a dispatching strategy that
                   always selects the server with the shortest queue. This strategy aims to evenly
                   distribute jobs among servers by minimizing the queue length, potentially reducing
-                  the overall waiting time for jobs in a server farm simulation.
+                  the overall waiting time for jobs in a server farm simulation. Queue lengths are kept in a
+                  LoadTree, so picking a server costs O(1) and each queue change costs O(log k).
 */
 
 public class ShortestQueueDispatcher extends JobDispatcher {
+    private LoadTree queueLengths;
 
     // Constructor: Initializes the ShortestQueueDispatcher with a specified number of servers and a visualization flag.
     public ShortestQueueDispatcher(int k, boolean showViz) {
         super(k, showViz);
+        queueLengths = new LoadTree(k);
+        for (int i = 0; i < k; i++) {
+            serverUpdated(i);
+        }
     }
 
     // Overrides the pickServer method to select and return the server with the shortest queue.
+    // Ties go to the first such server in the list.
     @Override
     public Server pickServer(Job j) {
-        Server shortestQueueServer = serverList.get(0);
-        int shortestQueueSize = shortestQueueServer.size();
-
-        for (Server server : serverList) {
-            int currentQueueSize = server.size();
-            if (currentQueueSize < shortestQueueSize) {
-                shortestQueueServer = server;
-                shortestQueueSize = currentQueueSize;
-            }
-        }
+        return serverList.get(queueLengths.argMin());
+    }
 
-        return shortestQueueServer;
+    // Keeps the server's queue length in the tree up to date.
+    @Override
+    protected void serverUpdated(int serverIndex) {
+        queueLengths.update(serverIndex, getQueueLength(serverIndex));
     }
 }
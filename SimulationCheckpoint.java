@@ -0,0 +1,253 @@
+/*
+file name:      SimulationCheckpoint.java
+Authors:        Vishnu Varadhan
+last modified:  10/18/2026
+Class Purpose:  A snapshot of a running simulation: the dispatcher's clock and job count, every server's queue,
+                clock and statistics, the dispatcher's own state (round-robin position, random streams), and the
+                state of the JobMaker feeding it. A checkpoint can be saved to a compact binary file and loaded
+                again, restored into a dispatcher that continues exactly where the saved one stopped, or forked
+                into several continuations that run in parallel with other dispatchers or server counts. Every
+                continuation replays the same remaining jobs, so they can be compared directly.
+
+                Run with: java SimulationCheckpoint [jobs before the fork] [jobs after the fork] [servers] [seed]
+*/
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+public class SimulationCheckpoint {
+    private static final int MAGIC = 0x5346_4350; // "SFCP"
+    private static final int VERSION = 1;
+
+    private final String dispatcherClassName;
+    private final int numServers;
+    private final int numJobsHandled;
+    private final double time;
+    private final byte[] dispatcherState;
+    private final byte[] jobMakerState; // null if the checkpoint has no JobMaker
+
+    private SimulationCheckpoint(String dispatcherClassName, int numServers, int numJobsHandled, double time,
+                                 byte[] dispatcherState, byte[] jobMakerState) {
+        this.dispatcherClassName = dispatcherClassName;
+        this.numServers = numServers;
+        this.numJobsHandled = numJobsHandled;
+        this.time = time;
+        this.dispatcherState = dispatcherState;
+        this.jobMakerState = jobMakerState;
+    }
+
+    // Takes a snapshot of a dispatcher and the JobMaker feeding it, which may be null. Neither is modified.
+    public static SimulationCheckpoint capture(JobDispatcher dispatcher, JobMaker jobMaker) {
+        try {
+            ByteArrayOutputStream dispatcherBytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(dispatcherBytes)) {
+                dispatcher.writeTo(out);
+            }
+            byte[] jobMakerState = null;
+            if (jobMaker != null) {
+                ByteArrayOutputStream jobMakerBytes = new ByteArrayOutputStream();
+                try (DataOutputStream out = new DataOutputStream(jobMakerBytes)) {
+                    jobMaker.writeTo(out);
+                }
+                jobMakerState = jobMakerBytes.toByteArray();
+            }
+            return new SimulationCheckpoint(dispatcher.getClass().getName(), dispatcher.getServerList().size(),
+                    dispatcher.getNumJobsHandled(), dispatcher.getTime(), dispatcherBytes.toByteArray(), jobMakerState);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Returns the class name of the dispatcher the checkpoint was taken from.
+    public String getDispatcherClassName() {
+        return dispatcherClassName;
+    }
+
+    // Returns the number of servers of the dispatcher the checkpoint was taken from.
+    public int getNumServers() {
+        return numServers;
+    }
+
+    // Returns the number of jobs handled before the checkpoint was taken.
+    public int getNumJobsHandled() {
+        return numJobsHandled;
+    }
+
+    // Returns the simulation time at which the checkpoint was taken.
+    public double getTime() {
+        return time;
+    }
+
+    // Returns true if the checkpoint holds the state of a JobMaker.
+    public boolean hasJobMaker() {
+        return jobMakerState != null;
+    }
+
+    // Writes the checkpoint to a file.
+    public void save(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(dispatcherClassName);
+            out.writeInt(numServers);
+            out.writeInt(numJobsHandled);
+            out.writeDouble(time);
+            out.writeInt(dispatcherState.length);
+            out.write(dispatcherState);
+            out.writeInt(jobMakerState == null ? -1 : jobMakerState.length);
+            if (jobMakerState != null) {
+                out.write(jobMakerState);
+            }
+        }
+    }
+
+    // Reads a checkpoint written by save.
+    public static SimulationCheckpoint load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a simulation checkpoint: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported simulation checkpoint version " + version + ": " + file);
+            }
+            String dispatcherClassName = in.readUTF();
+            int numServers = in.readInt();
+            int numJobsHandled = in.readInt();
+            double time = in.readDouble();
+            byte[] dispatcherState = new byte[in.readInt()];
+            in.readFully(dispatcherState);
+            int jobMakerLength = in.readInt();
+            byte[] jobMakerState = null;
+            if (jobMakerLength >= 0) {
+                jobMakerState = new byte[jobMakerLength];
+                in.readFully(jobMakerState);
+            }
+            return new SimulationCheckpoint(dispatcherClassName, numServers, numJobsHandled, time, dispatcherState, jobMakerState);
+        }
+    }
+
+    // Returns a dispatcher of the same kind and size as the saved one, which continues exactly where it stopped.
+    public JobDispatcher restoreDispatcher() {
+        JobDispatcher dispatcher;
+        try {
+            dispatcher = Class.forName(dispatcherClassName).asSubclass(JobDispatcher.class)
+                    .getConstructor(int.class, boolean.class).newInstance(numServers, false);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create a " + dispatcherClassName, e);
+        }
+        return restoreInto(dispatcher);
+    }
+
+    // Returns a dispatcher of the given type and size (see ExperimentSweep.createDispatcher) that starts from the
+    // saved state. If the type and size match the saved dispatcher it continues exactly where that one stopped and
+    // the seed is not used; otherwise the servers are carried over as described in JobDispatcher.readFrom.
+    public JobDispatcher restoreDispatcher(String dispatcherType, int numServers, long seed) {
+        return restoreInto(ExperimentSweep.createDispatcher(dispatcherType, numServers, false, seed));
+    }
+
+    // Returns a JobMaker that produces the jobs the saved one would have produced next.
+    public JobMaker restoreJobMaker() {
+        if (jobMakerState == null) {
+            throw new IllegalStateException("The checkpoint has no JobMaker");
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(jobMakerState))) {
+            return JobMaker.readFrom(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Continues the saved simulation once for each pair of dispatcher type and server count, each for numJobs more
+    // jobs from its own copy of the saved JobMaker, running up to parallelism continuations at a time. Returns the
+    // finished dispatchers in the order of the given types.
+    public List<JobDispatcher> fork(String[] dispatcherTypes, int[] serverCounts, long seed, int numJobs, int parallelism) {
+        if (dispatcherTypes.length != serverCounts.length) {
+            throw new IllegalArgumentException("Every dispatcher type needs a server count: "
+                    + dispatcherTypes.length + " != " + serverCounts.length);
+        }
+        List<Callable<JobDispatcher>> continuations = new ArrayList<>();
+        for (int i = 0; i < dispatcherTypes.length; i++) {
+            String dispatcherType = dispatcherTypes[i];
+            int k = serverCounts[i];
+            continuations.add(() -> {
+                JobDispatcher dispatcher = restoreDispatcher(dispatcherType, k, seed);
+                dispatcher.handleJobs(restoreJobMaker(), numJobs);
+                dispatcher.finishUp();
+                return dispatcher;
+            });
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<JobDispatcher> finished = new ArrayList<>();
+            for (Future<JobDispatcher> continuation : pool.invokeAll(continuations)) {
+                finished.add(continuation.get());
+            }
+            return finished;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running continuations", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A continuation failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private JobDispatcher restoreInto(JobDispatcher dispatcher) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(dispatcherState))) {
+            dispatcher.readFrom(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return dispatcher;
+    }
+
+    // Entry point: runs a least-work farm for a while, checkpoints it to a file, then forks the checkpoint into every
+    // dispatcher type, at the same server count and at a few servers less and more.
+    public static void main(String[] args) throws IOException {
+        int jobsBefore = args.length > 0 ? Integer.parseInt(args[0]) : 5000000;
+        int jobsAfter = args.length > 1 ? Integer.parseInt(args[1]) : 5000000;
+        int numServers = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 2024;
+
+        JobDispatcher dispatcher = ExperimentSweep.createDispatcher("least", numServers, false, seed);
+        JobMaker jobMaker = new JobMaker(3, 100, seed);
+        dispatcher.handleJobs(jobMaker, jobsBefore);
+        Path file = Files.createTempFile("simulation", ".checkpoint");
+        SimulationCheckpoint.capture(dispatcher, jobMaker).save(file);
+        System.out.println("Checkpoint after " + jobsBefore + " jobs: " + Files.size(file) + " bytes");
+        SimulationCheckpoint checkpoint = SimulationCheckpoint.load(file);
+        Files.delete(file);
+
+        String[] types = {"random", "round", "shortest", "least", "timeSensitive", "dlb", "powerOfTwo", "powerOfTwoLeast", "jiq"};
+        int[] serverDeltas = {-2, 0, 2};
+        String[] forkTypes = new String[types.length * serverDeltas.length];
+        int[] forkServers = new int[forkTypes.length];
+        for (int i = 0; i < forkTypes.length; i++) {
+            forkTypes[i] = types[i / serverDeltas.length];
+            forkServers[i] = Math.max(1, numServers + serverDeltas[i % serverDeltas.length]);
+        }
+        List<JobDispatcher> finished = checkpoint.fork(forkTypes, forkServers, seed,
+                jobsAfter, Runtime.getRuntime().availableProcessors());
+
+        System.out.println("Dispatcher Type\tServers\tAverage Waiting Time");
+        for (int i = 0; i < forkTypes.length; i++) {
+            System.out.println(forkTypes[i] + "\t" + forkServers[i] + "\t" + finished.get(i).getAverageWaitingTime());
+        }
+    }
+}
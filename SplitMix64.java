@@ -0,0 +1,101 @@
+/*
+file name:      SplitMix64.java
+Authors:        Vishnu Varadhan
+last modified:  10/18/2026
+Class Purpose:  Small, fast, splittable pseudo-random number generator (the SplitMix64 algorithm, which is also
+                what java.util.SplittableRandom uses). Each generator is a single 64-bit counter plus a step
+                size, so it is cheap to create, a seed reproduces a stream bit for bit, split() hands out
+                statistically independent substreams for parallel runs, and the whole state can be saved and
+                restored. It is not thread-safe; give each thread its own split.
+*/
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SplitMix64 {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+    // Seeds of the unseeded generators: advanced for every one created, so no two of them share a stream
+    private static final AtomicLong SEEDER = new AtomicLong(mix64(System.currentTimeMillis()) ^ mix64(System.nanoTime()));
+
+    private long seed;
+    private long gamma; // step added to the seed for each value; always odd
+
+    // Constructor: Creates a generator with an arbitrary seed, for runs that do not need to be reproduced.
+    public SplitMix64() {
+        this(mix64(SEEDER.getAndAdd(GOLDEN_GAMMA)));
+    }
+
+    // Constructor: Creates a generator whose stream is fully determined by the given seed.
+    public SplitMix64(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    // Constructor: Creates a generator from a saved seed and gamma, as returned by getSeed and getGamma.
+    public SplitMix64(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma | 1L;
+    }
+
+    // Returns the current seed, which together with the gamma is the generator's whole state.
+    public long getSeed() {
+        return seed;
+    }
+
+    // Returns the step added to the seed for each value.
+    public long getGamma() {
+        return gamma;
+    }
+
+    // Returns the next pseudo-random 64-bit value.
+    public long nextLong() {
+        seed += gamma;
+        return mix64(seed);
+    }
+
+    // Returns the next pseudo-random double, uniformly distributed in [0, 1).
+    public double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    // Returns the next pseudo-random int, uniformly distributed in [0, bound).
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive: " + bound);
+        }
+        int r = (int) (nextLong() >>> 33);
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            return (int) ((bound * (long) r) >> 31);
+        }
+        for (int u = r; u - (r = u % bound) + m < 0; u = (int) (nextLong() >>> 33)) {
+        }
+        return r;
+    }
+
+    // Returns a new generator whose stream is independent of this one's. Splitting advances this generator.
+    public SplitMix64 split() {
+        long childSeed = nextLong();
+        seed += gamma;
+        return new SplitMix64(childSeed, mixGamma(seed));
+    }
+
+    // Returns a copy of this generator that will produce the same stream from here on.
+    public SplitMix64 copy() {
+        return new SplitMix64(seed, gamma);
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // Turns a seed into a good gamma: odd, and with enough bit transitions that successive seeds are well mixed.
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int n = Long.bitCount(z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
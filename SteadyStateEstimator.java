@@ -0,0 +1,218 @@
+/*
+file name:      SteadyStateEstimator.java
+Authors:        Vishnu Varadhan
+last modified:  10/18/2026
+Class Purpose:  Decides how long to run a simulation. The run is fed in batches of jobs, and after each batch
+                the estimator records the waiting times of the jobs finished during it. From the batch means it
+                finds the end of the start-up transient with the MSER rule (the truncation point that minimizes the
+                squared standard error of the remaining batches), discards everything before it, and builds a
+                confidence interval for the steady-state mean waiting time from 20 equal groups of the remaining
+                batches. The run stops as soon as the interval's half-width falls below a target fraction of the
+                mean, instead of after a fixed number of jobs. The checks are spaced geometrically, so the whole
+                analysis costs time linear in the number of batches.
+*/
+
+import java.util.Arrays;
+
+public class SteadyStateEstimator {
+    private static final int NUM_GROUPS = 20;
+    private static final int TEST_GROUPS = 100;         // groups used to check that the interval's groups are independent
+    private static final double T_QUANTILE = 2.093;     // 97.5% point of Student's t with 19 degrees of freedom
+    private static final int MIN_BATCHES_PER_GROUP = 10;
+    private static final double CHECK_GROWTH = 1.1;     // check again once the number of batches grew by 10%
+    private static final double MAX_LAG_CORRELATION = 0.2;
+
+    // The outcome of a run: the estimated mean, its confidence interval, and how much of the run was used.
+    public static class Report {
+        public final double mean;
+        public final double halfWidth;
+        public final long truncatedJobs;
+        public final long jobsSimulated;
+        public final boolean converged;
+
+        public Report(double mean, double halfWidth, long truncatedJobs, long jobsSimulated, boolean converged) {
+            this.mean = mean;
+            this.halfWidth = halfWidth;
+            this.truncatedJobs = truncatedJobs;
+            this.jobsSimulated = jobsSimulated;
+            this.converged = converged;
+        }
+
+        public String toString() {
+            return "mean: " + mean + " +/- " + halfWidth + " (95% CI), warm-up discarded: " + truncatedJobs
+                    + " jobs, jobs simulated: " + jobsSimulated + (converged ? "" : ", did not reach the target precision");
+        }
+    }
+
+    private final double relativeHalfWidth;
+    private double[] batchWaits;   // total waiting time of the jobs finished in each batch
+    private long[] batchCounts;    // number of jobs finished in each batch
+    private long[] batchEnds;      // number of jobs handled by the end of each batch
+    private int numBatches;
+    private int nextCheck;
+
+    // Constructor: Creates an estimator that is satisfied once the 95% confidence half-width is at most
+    // relativeHalfWidth times the mean, for example 0.01 for 1%.
+    public SteadyStateEstimator(double relativeHalfWidth) {
+        if (!(relativeHalfWidth > 0)) {
+            throw new IllegalArgumentException("The target half-width must be positive: " + relativeHalfWidth);
+        }
+        this.relativeHalfWidth = relativeHalfWidth;
+        this.batchWaits = new double[256];
+        this.batchCounts = new long[256];
+        this.batchEnds = new long[256];
+        this.numBatches = 0;
+        this.nextCheck = NUM_GROUPS * MIN_BATCHES_PER_GROUP;
+    }
+
+    // Records one batch: the total waiting time and number of the jobs finished during it, and the number of jobs
+    // handled by its end. Batches in which no job finished are skipped.
+    public void addBatch(double totalWaitingTime, long jobsFinished, long jobsHandled) {
+        if (jobsFinished == 0) {
+            return;
+        }
+        if (numBatches == batchWaits.length) {
+            batchWaits = Arrays.copyOf(batchWaits, 2 * numBatches);
+            batchCounts = Arrays.copyOf(batchCounts, 2 * numBatches);
+            batchEnds = Arrays.copyOf(batchEnds, 2 * numBatches);
+        }
+        batchWaits[numBatches] = totalWaitingTime;
+        batchCounts[numBatches] = jobsFinished;
+        batchEnds[numBatches] = jobsHandled;
+        numBatches++;
+    }
+
+    // Returns the number of batches recorded.
+    public int getNumBatches() {
+        return numBatches;
+    }
+
+    // Returns true if enough new batches have come in since the last check to make another one worthwhile.
+    public boolean isCheckDue() {
+        return numBatches >= nextCheck;
+    }
+
+    // Returns the current estimate and schedules the next check.
+    public Report estimate() {
+        nextCheck = Math.max(nextCheck, (int) Math.ceil(numBatches * CHECK_GROWTH));
+        long jobsSimulated = numBatches == 0 ? 0 : batchEnds[numBatches - 1];
+        if (numBatches < NUM_GROUPS * MIN_BATCHES_PER_GROUP) {
+            return new Report(Double.NaN, Double.POSITIVE_INFINITY, 0, jobsSimulated, false);
+        }
+
+        int truncation = mserTruncationPoint();
+        // A minimum at the end of the search range means the transient has not visibly ended yet
+        boolean warmedUp = truncation < numBatches / 2;
+
+        int remaining = numBatches - truncation;
+        double totalWait = 0;
+        long totalCount = 0;
+        double[] groupMeans = new double[NUM_GROUPS];
+        for (int g = 0; g < NUM_GROUPS; g++) {
+            int from = truncation + (int) ((long) remaining * g / NUM_GROUPS);
+            int to = truncation + (int) ((long) remaining * (g + 1) / NUM_GROUPS);
+            double groupWait = 0;
+            long groupCount = 0;
+            for (int i = from; i < to; i++) {
+                groupWait += batchWaits[i];
+                groupCount += batchCounts[i];
+            }
+            groupMeans[g] = groupWait / groupCount;
+            totalWait += groupWait;
+            totalCount += groupCount;
+        }
+        double mean = totalWait / totalCount;
+        double sumSquares = 0;
+        for (double groupMean : groupMeans) {
+            sumSquares += (groupMean - mean) * (groupMean - mean);
+        }
+        double halfWidth = T_QUANTILE * Math.sqrt(sumSquares / (NUM_GROUPS - 1) / NUM_GROUPS);
+        // The interval assumes the group means are independent. Heavily loaded farms stay correlated over very
+        // many jobs, and while the groups are shorter than that the interval is far too narrow, so keep going
+        // until the means of groups five times smaller than those of the interval no longer look correlated.
+        boolean independent = lagCorrelation(truncation, remaining, mean) <= MAX_LAG_CORRELATION;
+        long truncatedJobs = truncation == 0 ? 0 : batchEnds[truncation - 1];
+        boolean converged = warmedUp && independent && halfWidth <= relativeHalfWidth * Math.abs(mean);
+        return new Report(mean, halfWidth, truncatedJobs, jobsSimulated, converged);
+    }
+
+    // The lag-1 autocorrelation of the means of TEST_GROUPS equal groups of the batches from truncation on.
+    private double lagCorrelation(int truncation, int remaining, double mean) {
+        double previous = 0;
+        double sumSquares = 0;
+        double lagProducts = 0;
+        for (int g = 0; g < TEST_GROUPS; g++) {
+            int from = truncation + (int) ((long) remaining * g / TEST_GROUPS);
+            int to = truncation + (int) ((long) remaining * (g + 1) / TEST_GROUPS);
+            double groupWait = 0;
+            long groupCount = 0;
+            for (int i = from; i < to; i++) {
+                groupWait += batchWaits[i];
+                groupCount += batchCounts[i];
+            }
+            double deviation = groupWait / groupCount - mean;
+            sumSquares += deviation * deviation;
+            if (g > 0) {
+                lagProducts += deviation * previous;
+            }
+            previous = deviation;
+        }
+        return sumSquares == 0 ? 0 : lagProducts / sumSquares;
+    }
+
+    // The MSER truncation point: the number d of leading batches, at most half of them, that minimizes
+    // sum over i >= d of (Y_i - mean_d)^2 / (n - d)^2, where Y_i are the batch means.
+    private int mserTruncationPoint() {
+        int n = numBatches;
+        double sum = 0;
+        double sumSquares = 0;
+        double best = Double.POSITIVE_INFINITY;
+        int bestD = 0;
+        // Walk d down from n - 1, extending the suffix sums one batch at a time
+        for (int d = n - 1; d >= 0; d--) {
+            double y = batchWaits[d] / batchCounts[d];
+            sum += y;
+            sumSquares += y * y;
+            int m = n - d;
+            if (d <= n / 2) {
+                double statistic = Math.max(0, sumSquares - sum * sum / m) / ((double) m * m);
+                if (statistic <= best) {
+                    best = statistic;
+                    bestD = d;
+                }
+            }
+        }
+        return bestD;
+    }
+
+    // Runs a dispatcher on jobs from a source, batchSize jobs at a time, until the mean waiting time is known to
+    // within the target precision or maxJobs jobs have been handled, and returns the estimate.
+    public static Report run(JobDispatcher dispatcher, JobSource source, double relativeHalfWidth, int batchSize, long maxJobs) {
+        SteadyStateEstimator estimator = new SteadyStateEstimator(relativeHalfWidth);
+        long handled = 0;
+        double lastWait = 0;
+        long lastCount = 0;
+        while (handled < maxJobs && source.hasNextJob()) {
+            handled += dispatcher.handleJobs(source, Math.min(batchSize, maxJobs - handled));
+            double totalWait = dispatcher.getTotalWaitingTime();
+            long count = dispatcher.getNumJobsFinished();
+            if (count > lastCount) {
+                estimator.addBatch(totalWait - lastWait, count - lastCount, handled);
+                lastWait = totalWait;
+                lastCount = count;
+            }
+            if (estimator.isCheckDue()) {
+                Report report = estimator.estimate();
+                if (report.converged) {
+                    return report;
+                }
+            }
+        }
+        return estimator.estimate();
+    }
+
+    // The batch size used when none is given: large enough that summing the farm's totals once per batch stays cheap.
+    public static int defaultBatchSize(int numServers) {
+        return Math.max(1000, numServers);
+    }
+}
@@ -5,34 +5,46 @@
   Class Purpose:  Implements a dispatch strategy focusing on minimizing the average processing time
                   by selecting servers based on their current job queue lengths and estimated processing times.
                   This dispatcher aims to balance the workload across servers, prioritizing those with lower
-                  average job processing times to optimize overall system performance.
+                  average job processing times to optimize overall system performance. Average times are kept
+                  in a LoadTree, so picking a server costs O(1) and each queue change costs O(log k).
 */
 
-import java.util.*;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 
 public class TimeSensitiveDispatcher extends JobDispatcher {
 
-    private Random rand = new Random();
+    private SplitMix64 rand;
+    private LoadTree averageTimes;
 
     // Constructor: Initializes the TimeSensitiveDispatcher with a specified number of servers and a visualization flag.
     public TimeSensitiveDispatcher(int k, boolean showViz) {
+        this(k, showViz, new SplitMix64());
+    }
+
+    // Constructor: Initializes the TimeSensitiveDispatcher with a seed for its random fallback, so runs can be reproduced.
+    public TimeSensitiveDispatcher(int k, boolean showViz, long seed) {
+        this(k, showViz, new SplitMix64(seed));
+    }
+
+    private TimeSensitiveDispatcher(int k, boolean showViz, SplitMix64 rand) {
         super(k, showViz);
+        this.rand = rand;
+        averageTimes = new LoadTree(k);
+        for (int i = 0; i < k; i++) {
+            serverUpdated(i);
+        }
     }
 
     // Selects a server for the job based on attempting to minimize the average processing time.
     @Override
     public Server pickServer(Job j) {
         Server selectedServer = null;
-        double bestAverageTime = Double.MAX_VALUE;
-
-        // Iterates through each server to find the one with the lowest average processing time.
-        for (Server server : serverList) {
-            double averageTime = server.size() > 0 ? server.remainingWorkInQueue() / server.size() : 0;
 
-            if (averageTime < bestAverageTime) {
-                bestAverageTime = averageTime;
-                selectedServer = server;
-            }
+        // The tree holds the server with the lowest average processing time, the first one on ties.
+        if (averageTimes.minKey() < Double.MAX_VALUE) {
+            selectedServer = serverList.get(averageTimes.argMin());
         }
 
         // Fallback to a random server selection if no server has been selected based on the average time.
@@ -42,4 +54,24 @@ public class TimeSensitiveDispatcher extends JobDispatcher {
 
         return selectedServer;
     }
+
+    // Keeps the server's average processing time in the tree up to date.
+    @Override
+    protected void serverUpdated(int serverIndex) {
+        int queueLength = getQueueLength(serverIndex);
+        averageTimes.update(serverIndex, queueLength > 0 ? getRemainingWork(serverIndex) / queueLength : 0);
+    }
+
+    // Saves the random stream of the fallback, so a restored run makes the same choices.
+    @Override
+    protected void writePolicyState(DataOutputStream out) throws IOException {
+        out.writeLong(rand.getSeed());
+        out.writeLong(rand.getGamma());
+    }
+
+    // Restores the random stream of the fallback.
+    @Override
+    protected void readPolicyState(DataInputStream in) throws IOException {
+        rand = new SplitMix64(in.readLong(), in.readLong());
+    }
 }
\ No newline at end of file